@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.changes.ChangeSet;
+import io.quarkus.oidc.client.reactive.filter.OidcClientRequestReactiveFilter;
+import io.smallrye.mutiny.Multi;
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
+import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * ChangeClient -- The change feed and the change stream of the data store.
+ *
+ * <p>The stream is opened at startup and the feed is read by the background catch up. Neither has a user request to
+ * propagate the token from, so the client authenticates with its own client credentials (quarkus.oidc-client).</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@RegisterRestClient(configKey = "changes-api")
+@RegisterProvider(value = OidcClientRequestReactiveFilter.class, priority = 5000)
+@Path("/api/v1/changes")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public interface ChangeClient {
+    /**
+     * Retrieves the entities changed after the given revision.
+     *
+     * @param since The high-water mark of the last change set. A negative value only retrieves the current mark.
+     * @param types Comma separated list of types (dispatch, engagement, operative).
+     * @return The changes and the new high-water mark.
+     */
+    @GET
+    ChangeSet changes(@QueryParam("since") final long since, @QueryParam("types") final String types);
+
+    /**
+     * Subscribes to the changes pushed by the data store as server-sent events.
+     *
+     * @return The change sets, each starting at the high-water mark of the former one.
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    Multi<ChangeSet> stream();
+}
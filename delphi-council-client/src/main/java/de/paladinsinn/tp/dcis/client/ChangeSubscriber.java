@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.Cancellable;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.time.Duration;
+
+/**
+ * ChangeSubscriber -- Subscribes to the change stream of the data store and applies the pushed changes to the caches.
+ *
+ * <p>The subscription is opened at startup and reopened with a back-off after errors. Changes missed while the stream
+ * was down are fetched by the {@link ChangeTracker} from the change feed.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@Slf4j
+public class ChangeSubscriber {
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    @Inject
+    @RestClient
+    ChangeClient client;
+
+    @Inject
+    ChangeTracker tracker;
+
+    @ConfigProperty(name = "delphi-council.changes.subscribe", defaultValue = "true")
+    boolean enabled;
+
+    private Cancellable subscription;
+
+
+    void start(@Observes final StartupEvent event) {
+        if (!enabled) {
+            log.info("Change stream disabled. The caches only see the changes of this instance.");
+            return;
+        }
+
+        subscription = client.stream()
+                // the caches and the catch up are blocking, they must not run on the event loop.
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                // a stream closed by the data store (e.g. on redeployment) is reopened like a failed one.
+                .onCompletion().failWith(() -> new IllegalStateException("The change stream has been closed."))
+                .onFailure().invoke(e -> log.warn("Change stream failed, reconnecting. error={}", e.getMessage()))
+                .onFailure().retry().withBackOff(MIN_BACKOFF, MAX_BACKOFF).indefinitely()
+                .subscribe().with(
+                        changes -> {
+                            try {
+                                tracker.apply(changes);
+                            } catch (RuntimeException e) {
+                                log.error("Could not apply the pushed changes. They are fetched with the next "
+                                        + "change set.", e);
+                            }
+                        },
+                        e -> log.error("Change stream ended.", e)
+                );
+
+        log.info("Change stream subscribed.");
+    }
+
+    void stop(@Observes final ShutdownEvent event) {
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.changes.ChangeSet;
+import de.paladinsinn.tp.dcis.model.changes.ChangedEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * ChangeTracker -- Applies the changes of the data store to the caches of the REST clients.
+ *
+ * <p>Every call of {@link #sync()} requests the changes since the last high-water mark and evicts exactly the cached
+ * single entities that changed from the {@link DispatchStore}, the {@link EngagementStore} and the
+ * {@link OperativeStore}. The cached lists of a type are evicted whenever an entity of the type changed, since their
+ * content can not be matched to the changed IDs. Unchanged entities stay cached, so the traffic depends on the rate of
+ * changes and not on the size of the catalog.</p>
+ *
+ * <p>Change sets pushed by the data store (see {@link ChangeSubscriber}) are applied with {@link #apply(ChangeSet)}
+ * the same way.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@Slf4j
+public class ChangeTracker {
+    private static final String TYPES = String.join(",",
+            ChangedEntity.DISPATCH, ChangedEntity.ENGAGEMENT, ChangedEntity.OPERATIVE);
+
+    @Inject
+    @RestClient
+    ChangeClient client;
+
+    @Inject
+    DispatchStore dispatches;
+
+    @Inject
+    EngagementStore engagements;
+
+    @Inject
+    OperativeStore operatives;
+
+    private long mark = -1L;
+
+
+    /**
+     * Requests the changes since the last call and evicts the affected cache entries. The first call only fetches the
+     * high-water mark and clears the caches.
+     *
+     * @return The number of changed entities.
+     */
+    public synchronized int sync() {
+        if (mark < 0) {
+            mark = client.changes(-1L, TYPES).getUntil();
+            dispatches.clear();
+            engagements.clear();
+            operatives.clear();
+
+            log.info("Change tracking started. revision={}", mark);
+            return 0;
+        }
+
+        int result = 0;
+        ChangeSet changes;
+        do {
+            changes = client.changes(mark, TYPES);
+            evict(changes);
+
+            mark = changes.getUntil();
+            result += changes.getChanges().size();
+        } while (changes.isMore());
+
+        log.debug("Changes applied. revision={}, count={}", mark, result);
+        return result;
+    }
+
+    /**
+     * Applies a pushed change set. If change sets have been missed (the change set starts after the last high-water
+     * mark), the caches catch up with {@link #sync()} instead.
+     *
+     * @param changes The pushed change set.
+     */
+    public synchronized void apply(final ChangeSet changes) {
+        if (mark < 0 || changes.getSince() > mark) {
+            sync();
+            return;
+        }
+        if (changes.getUntil() <= mark) {
+            return;
+        }
+
+        evict(changes);
+        mark = changes.getUntil();
+        log.debug("Pushed changes applied. revision={}, count={}", mark, changes.getChanges().size());
+    }
+
+    /**
+     * @return The last high-water mark applied to the caches or -1 if tracking has not started yet.
+     */
+    public synchronized long getMark() {
+        return mark;
+    }
+
+
+    private void evict(final ChangeSet changes) {
+        Map<String, Set<UUID>> ids = changes.getChanges().stream()
+                .collect(Collectors.groupingBy(
+                        ChangedEntity::getType,
+                        Collectors.mapping(ChangedEntity::getId, Collectors.toSet())
+                ));
+
+        evict(ids.get(ChangedEntity.DISPATCH), dispatches::changed);
+        evict(ids.get(ChangedEntity.ENGAGEMENT), engagements::changed);
+        evict(ids.get(ChangedEntity.OPERATIVE), operatives::changed);
+    }
+
+    private void evict(final Set<UUID> ids, final Consumer<Set<UUID>> store) {
+        if (ids != null && !ids.isEmpty()) {
+            store.accept(ids);
+        }
+    }
+}
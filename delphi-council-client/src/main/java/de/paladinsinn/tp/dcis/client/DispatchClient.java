@@ -10,31 +10,30 @@
 
 package de.paladinsinn.tp.dcis.client;
 
+import de.paladinsinn.tp.dcis.model.batch.BatchResult;
 import de.paladinsinn.tp.dcis.model.client.Operation;
 import de.paladinsinn.tp.dcis.model.lists.BasicList;
-import io.quarkus.cache.CacheInvalidate;
-import io.quarkus.cache.CacheResult;
 import io.quarkus.oidc.token.propagation.reactive.AccessTokenRequestReactiveFilter;
 import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @RegisterRestClient(configKey = "dispatches-api")
 @RegisterProvider(value = AccessTokenRequestReactiveFilter.class, priority = 5000)
+@RegisterProvider(ReadAfterFilter.class)
 @Path("/api/v1/dispatches")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
 public interface DispatchClient {
-    String CACHE_NAME = "dc-dispatches";
-    long CACHE_LOCK_TIMEOUT = 10L;
-
-
     @POST
     @Path("/")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     Operation create(final Operation data);
 
     /**
@@ -46,46 +45,128 @@ public interface DispatchClient {
      */
     @GET
     @Path("/")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     BasicList retrieve(
             @QueryParam("start") long start,
             @QueryParam("size") long size
     );
 
+    /**
+     * Retrieves a page of data following the given cursor (keyset paging). The latency of the request is independent
+     * of the position of the page within the total list.
+     *
+     * @param cursor the cursor delivered with the previous page ({@link BasicList#getNext()}) or null for the first page.
+     * @param size the size of the page to retrieve.
+     * @return A list containing the paging data, the elements retrieved and the cursor for the next page.
+     */
+    @GET
+    @Path("/")
+    BasicList retrieve(
+            @QueryParam("cursor") String cursor,
+            @QueryParam("size") long size
+    );
+
     /**
      * Retrieves all elements of the type.
      * @return A list containing all elements of the store of this type.
      */
     @GET
     @Path("/")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     BasicList retrieve();
 
+    /**
+     * Revalidates a cached page (see {@link #retrieve(long, long)}).
+     *
+     * @param start the first element to retrieve.
+     * @param size the size of the page to retrieve.
+     * @param etag the ETag delivered with the cached page or null.
+     * @return 304 if the list did not change since the ETag, else 200 with the page and its new ETag.
+     */
+    @GET
+    @Path("/")
+    Response revalidate(
+            @QueryParam("start") long start,
+            @QueryParam("size") long size,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String etag
+    );
+
+    /**
+     * Revalidates a cached page (see {@link #retrieve(String, long)}).
+     *
+     * @param cursor the cursor delivered with the previous page or null for the first page.
+     * @param size the size of the page to retrieve.
+     * @param etag the ETag delivered with the cached page or null.
+     * @return 304 if the list did not change since the ETag, else 200 with the page and its new ETag.
+     */
+    @GET
+    @Path("/")
+    Response revalidate(
+            @QueryParam("cursor") String cursor,
+            @QueryParam("size") long size,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String etag
+    );
+
+    /**
+     * Revalidates the cached list of all elements (see {@link #retrieve()}).
+     *
+     * @param etag the ETag delivered with the cached list or null.
+     * @return 304 if the list did not change since the ETag, else 200 with the list and its new ETag.
+     */
+    @GET
+    @Path("/")
+    Response revalidate(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String etag);
+
     @GET
     @Path("/gm/{id}")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     BasicList retrieveByGM(@PathParam("id") final String gm, @QueryParam("start") final int start, @QueryParam("size") final int size);
 
     @GET
     @Path("/operative/{id}")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     BasicList retrieveByOperative(@PathParam("id") final String gm, @QueryParam("start") final int start, @QueryParam("size") final int size);
 
 
     @GET
     @Path("/{id}")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     Operation retrieve(@PathParam("id") UUID id);
 
+    /**
+     * Revalidates a cached dispatch (see {@link #retrieve(UUID)}).
+     *
+     * @param id the ID of the dispatch.
+     * @param etag the ETag delivered with the cached dispatch or null.
+     * @return 304 if the dispatch did not change since the ETag, else 200 with the dispatch and its new ETag.
+     */
+    @GET
+    @Path("/{id}")
+    Response revalidate(@PathParam("id") UUID id, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String etag);
+
+    /**
+     * Retrieves many dispatches with one request.
+     *
+     * @param ids the IDs of the dispatches (at most 100).
+     * @return the dispatches found in request order. Unknown IDs are skipped.
+     */
+    @GET
+    @Path("/")
+    List<Operation> retrieveAll(@QueryParam("id") Set<UUID> ids);
+
 
     @PUT
     @Path("/{id}")
-    @CacheInvalidate(cacheName = CACHE_NAME)
     void update(@PathParam("id") final UUID id, final Operation data);
 
 
+    /**
+     * Creates and updates many dispatches within one request and one transaction on the server.
+     *
+     * @param data the dispatches to store. Dispatches without a known ID are created.
+     * @return the outcome for every dispatch in request order.
+     */
+    @POST
+    @Path("/batch")
+    BatchResult batch(final List<Operation> data);
+
+
     @DELETE
     @Path("/{id}")
-    @CacheInvalidate(cacheName = CACHE_NAME)
     void delete(@PathParam("id") final UUID id);
 }
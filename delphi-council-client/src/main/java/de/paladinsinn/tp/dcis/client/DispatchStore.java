@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.batch.BatchResult;
+import de.paladinsinn.tp.dcis.model.client.Operation;
+import de.paladinsinn.tp.dcis.model.client.PersistedImpl;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CompositeCacheKey;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * DispatchStore -- The cached access to the dispatches of the data store.
+ *
+ * <p>Single dispatches are cached by their ID, the pages and lists in a separate cache. Every write of this instance
+ * invalidates the written dispatch and all cached lists after the data store accepted it, so the next read returns
+ * the written state. Writes of other instances are applied by the {@link ChangeTracker}.</p>
+ *
+ * <p>Expired or evicted dispatches and lists are revalidated with their ETag (see {@link Validators}), so an unchanged
+ * dispatch is not transferred again.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@Slf4j
+public class DispatchStore {
+    public static final String CACHE_NAME = "dc-dispatches";
+    public static final String LIST_CACHE_NAME = "dc-dispatch-lists";
+    public static final String VALIDATOR_CACHE_NAME = "dc-dispatch-validators";
+
+    @Inject
+    @RestClient
+    DispatchClient client;
+
+    @Inject
+    EngagementStore engagements;
+
+    @Inject
+    SingleFlight flights;
+
+    @CacheName(CACHE_NAME)
+    Cache entities;
+
+    @CacheName(LIST_CACHE_NAME)
+    Cache lists;
+
+    @CacheName(VALIDATOR_CACHE_NAME)
+    Cache validatorCache;
+
+    @Inject
+    MeterRegistry registry;
+
+    private EntityCache cache;
+    private Validators validators;
+
+
+    @PostConstruct
+    void init() {
+        cache = new EntityCache(entities, lists, flights);
+        validators = new Validators(validatorCache, registry);
+    }
+
+
+    public Operation create(final Operation data) {
+        try {
+            return client.create(data);
+        } finally {
+            cache.written(data.getId());
+        }
+    }
+
+    /**
+     * @see DispatchClient#retrieve(long, long)
+     */
+    public BasicList retrieve(final long start, final long size) {
+        CompositeCacheKey key = new CompositeCacheKey("page", start, size);
+
+        return cache.list(key,
+                () -> validators.load(key, BasicList.class, etag -> client.revalidate(start, size, etag)));
+    }
+
+    /**
+     * @see DispatchClient#retrieve(String, long)
+     */
+    public BasicList retrieve(final String cursor, final long size) {
+        CompositeCacheKey key = new CompositeCacheKey("cursor", Objects.toString(cursor, ""), size);
+
+        return cache.list(key,
+                () -> validators.load(key, BasicList.class, etag -> client.revalidate(cursor, size, etag)));
+    }
+
+    /**
+     * @see DispatchClient#retrieve()
+     */
+    public BasicList retrieve() {
+        return cache.list("all", () -> validators.load("all", BasicList.class, client::revalidate));
+    }
+
+    public BasicList retrieveByGM(final String gm, final int start, final int size) {
+        return cache.list(new CompositeCacheKey("gm", gm, start, size), () -> client.retrieveByGM(gm, start, size));
+    }
+
+    public BasicList retrieveByOperative(final String operative, final int start, final int size) {
+        return cache.list(new CompositeCacheKey("operative", operative, start, size),
+                () -> client.retrieveByOperative(operative, start, size));
+    }
+
+    public Operation retrieve(final UUID id) {
+        return cache.entity(id, () -> validators.load(id, Operation.class, etag -> client.revalidate(id, etag)));
+    }
+
+    /**
+     * Retrieves many dispatches. Only the dispatches not cached yet are requested, with one multi-get per 100 IDs.
+     *
+     * @param ids The IDs of the dispatches.
+     * @return The dispatches found in the order of the IDs.
+     */
+    public List<Operation> retrieveAll(final Set<UUID> ids) {
+        return cache.entities(ids, client::retrieveAll);
+    }
+
+    public void update(final UUID id, final Operation data) {
+        try {
+            client.update(id, data);
+        } finally {
+            cache.written(id);
+        }
+    }
+
+    /**
+     * @see DispatchClient#batch(List)
+     */
+    public BatchResult batch(final List<Operation> data) {
+        try {
+            return client.batch(data);
+        } finally {
+            cache.written(data.stream().map(PersistedImpl::getId).filter(Objects::nonNull).toArray());
+        }
+    }
+
+    public void delete(final UUID id) {
+        try {
+            client.delete(id);
+        } finally {
+            cache.written(id);
+            engagements.changed(Set.of(id));
+        }
+    }
+
+
+    /**
+     * Evicts dispatches changed by other instances (see {@link ChangeTracker}).
+     *
+     * @param ids The IDs of the changed dispatches.
+     */
+    void changed(final Set<UUID> ids) {
+        cache.evict(ids::contains);
+    }
+
+    /**
+     * @return The caches shared with the reactive variant of this store.
+     */
+    EntityCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return The validators shared with the reactive variant of this store.
+     */
+    Validators getValidators() {
+        return validators;
+    }
+
+    /**
+     * Evicts all cached dispatches.
+     */
+    void clear() {
+        cache.clear();
+    }
+}
@@ -14,8 +14,6 @@ import de.paladinsinn.tp.dcis.model.client.DispatchReport;
 import de.paladinsinn.tp.dcis.model.client.Operation;
 import de.paladinsinn.tp.dcis.model.client.Outcome;
 import de.paladinsinn.tp.dcis.model.lists.BasicList;
-import io.quarkus.cache.CacheInvalidate;
-import io.quarkus.cache.CacheResult;
 import io.quarkus.oidc.token.propagation.reactive.AccessTokenRequestReactiveFilter;
 import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
@@ -26,14 +24,11 @@ import java.util.UUID;
 
 @RegisterRestClient(configKey = "engagements-api")
 @RegisterProvider(value = AccessTokenRequestReactiveFilter.class, priority = 5000)
+@RegisterProvider(ReadAfterFilter.class)
 @Path("/api/v1/engagements")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
 public interface EngagementClient {
-    String CACHE_NAME = "dc-engagements";
-    long CACHE_LOCK_TIMEOUT = 10L;
-
-
     /**
      * Creates a new engagment for a given dispatch.
      *
@@ -43,7 +38,6 @@ public interface EngagementClient {
      */
     @POST
     @Path("/{dispatch}")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     Operation create(
             @PathParam("dispatch") final UUID dispatch,
             final DispatchReport data
@@ -59,7 +53,6 @@ public interface EngagementClient {
      */
     @GET
     @Path("/{dispatch}")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     BasicList retrieve(
             @PathParam("dispatch") final UUID dispatch,
             @QueryParam("start") final long start,
@@ -72,18 +65,15 @@ public interface EngagementClient {
      */
     @GET
     @Path("/{dispatch}")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     BasicList retrieve(@PathParam("dispatch") final UUID dispatch);
 
     @GET
     @Path("/{dispatch}/{engagement}")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     DispatchReport retrieve(@PathParam("dispatch") final UUID dispatch, @PathParam("engagement") final UUID engagement);
 
 
     @GET
     @Path("/{dispatch}/gm/{id}")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     BasicList retrieveByGM(
             @PathParam("dispatch") final UUID dispatch,
             @PathParam("id") final String gm,
@@ -93,7 +83,6 @@ public interface EngagementClient {
 
     @GET
     @Path("/{dispatch}/operative/{id}")
-    @CacheResult(cacheName = CACHE_NAME, lockTimeout = CACHE_LOCK_TIMEOUT)
     BasicList retrieveByOperative(
             @PathParam("dispatch") final UUID dispatch,
             @PathParam("id") final String operative,
@@ -105,7 +94,6 @@ public interface EngagementClient {
 
     @PUT
     @Path("/{dispatch}/{engagement}/operative/{operative}")
-    @CacheInvalidate(cacheName = CACHE_NAME)
     void addOperative(
             @PathParam("dispatch") final UUID dispatch,
             @PathParam("engagement") final UUID engagement,
@@ -115,7 +103,6 @@ public interface EngagementClient {
 
     @POST
     @Path("/{dispatch}/{engagement}/operative/{operative}")
-    @CacheInvalidate(cacheName = CACHE_NAME)
     void updateOperative(
             @PathParam("dispatch") final UUID dispatch,
             @PathParam("engagement") final UUID engagement,
@@ -126,15 +113,14 @@ public interface EngagementClient {
 
     @DELETE
     @Path("/{dispatch}/{engagement}/operative/{operative}")
-    @CacheInvalidate(cacheName = CACHE_NAME)
     void removeOperative(
             @PathParam("dispatch") final UUID dispatch,
+            @PathParam("engagement") final UUID engagement,
             @PathParam("operative") final UUID operative
     );
 
     @PUT
     @Path("/{dispatch}/{engagement}")
-    @CacheInvalidate(cacheName = CACHE_NAME)
     void update(
             @PathParam("dispatch") final UUID dispatch,
             @PathParam("engagement") final UUID engagement,
@@ -144,7 +130,6 @@ public interface EngagementClient {
 
     @DELETE
     @Path("/{dispatch}/{engagement}")
-    @CacheInvalidate(cacheName = CACHE_NAME)
     void delete(
             @PathParam("dispatch") final UUID dispatch,
             @PathParam("engagement") final UUID engagement
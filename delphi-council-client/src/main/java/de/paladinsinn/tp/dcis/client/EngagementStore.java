@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.client.DispatchReport;
+import de.paladinsinn.tp.dcis.model.client.Operation;
+import de.paladinsinn.tp.dcis.model.client.Outcome;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CompositeCacheKey;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * EngagementStore -- The cached access to the engagements of the data store.
+ *
+ * <p>Single engagements are cached by the IDs of dispatch and engagement, the lists in a separate cache. Every write
+ * of this instance invalidates the written engagement and all cached lists after the data store accepted it. Writes
+ * of other instances are applied by the {@link ChangeTracker}.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@Slf4j
+public class EngagementStore {
+    public static final String CACHE_NAME = "dc-engagements";
+    public static final String LIST_CACHE_NAME = "dc-engagement-lists";
+
+    @Inject
+    @RestClient
+    EngagementClient client;
+
+    @Inject
+    SingleFlight flights;
+
+    @CacheName(CACHE_NAME)
+    Cache entities;
+
+    @CacheName(LIST_CACHE_NAME)
+    Cache lists;
+
+    private EntityCache cache;
+
+
+    @PostConstruct
+    void init() {
+        cache = new EntityCache(entities, lists, flights);
+    }
+
+
+    /**
+     * @see EngagementClient#create(UUID, DispatchReport)
+     */
+    public Operation create(final UUID dispatch, final DispatchReport data) {
+        try {
+            return client.create(dispatch, data);
+        } finally {
+            cache.written(key(dispatch, data.getId()));
+        }
+    }
+
+    /**
+     * @see EngagementClient#retrieve(UUID, long, long)
+     */
+    public BasicList retrieve(final UUID dispatch, final long start, final long size) {
+        return cache.list(new CompositeCacheKey("page", dispatch, start, size),
+                () -> client.retrieve(dispatch, start, size));
+    }
+
+    /**
+     * @see EngagementClient#retrieve(UUID)
+     */
+    public BasicList retrieve(final UUID dispatch) {
+        return cache.list(new CompositeCacheKey("all", dispatch), () -> client.retrieve(dispatch));
+    }
+
+    public DispatchReport retrieve(final UUID dispatch, final UUID engagement) {
+        return cache.entity(key(dispatch, engagement), () -> client.retrieve(dispatch, engagement));
+    }
+
+    public BasicList retrieveByGM(final UUID dispatch, final String gm, final int start, final int size) {
+        return cache.list(new CompositeCacheKey("gm", dispatch, gm, start, size),
+                () -> client.retrieveByGM(dispatch, gm, start, size));
+    }
+
+    public BasicList retrieveByOperative(final UUID dispatch, final String operative, final int start, final int size) {
+        return cache.list(new CompositeCacheKey("operative", dispatch, operative, start, size),
+                () -> client.retrieveByOperative(dispatch, operative, start, size));
+    }
+
+    public void addOperative(final UUID dispatch, final UUID engagement, final UUID operative, final Outcome outcome) {
+        try {
+            client.addOperative(dispatch, engagement, operative, outcome);
+        } finally {
+            cache.written(key(dispatch, engagement));
+        }
+    }
+
+    public void updateOperative(final UUID dispatch, final UUID engagement, final UUID operative, final Outcome outcome) {
+        try {
+            client.updateOperative(dispatch, engagement, operative, outcome);
+        } finally {
+            cache.written(key(dispatch, engagement));
+        }
+    }
+
+    public void removeOperative(final UUID dispatch, final UUID engagement, final UUID operative) {
+        try {
+            client.removeOperative(dispatch, engagement, operative);
+        } finally {
+            cache.written(key(dispatch, engagement));
+        }
+    }
+
+    public void update(final UUID dispatch, final UUID engagement, final Operation data) {
+        try {
+            client.update(dispatch, engagement, data);
+        } finally {
+            cache.written(key(dispatch, engagement));
+        }
+    }
+
+    public void delete(final UUID dispatch, final UUID engagement) {
+        try {
+            client.delete(dispatch, engagement);
+        } finally {
+            cache.written(key(dispatch, engagement));
+        }
+    }
+
+
+    /**
+     * Evicts engagements changed by other instances (see {@link ChangeTracker}).
+     *
+     * @param ids The IDs of the changed engagements or their dispatches.
+     */
+    void changed(final Set<UUID> ids) {
+        cache.evict(key -> key instanceof CompositeCacheKey composite
+                && Arrays.stream(composite.getKeyElements()).anyMatch(ids::contains));
+    }
+
+    /**
+     * @return The caches shared with the reactive variant of this store.
+     */
+    EntityCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Evicts all cached engagements.
+     */
+    void clear() {
+        cache.clear();
+    }
+
+
+    static CompositeCacheKey key(final UUID dispatch, final UUID engagement) {
+        return new CompositeCacheKey(dispatch, engagement);
+    }
+}
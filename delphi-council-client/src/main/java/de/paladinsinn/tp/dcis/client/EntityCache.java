@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.client.PersistedImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CaffeineCache;
+import io.quarkus.cache.CompositeCacheKey;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * EntityCache -- The cached single entities of a type, keyed by their ID, and the cached lists of the type.
+ *
+ * <p>A write invalidates the written entities and all lists of the type, since the content of a list can not be
+ * matched to the written IDs. Values loaded while a write was running are invalidated after loading, so a value read
+ * before the write never survives it in the cache.</p>
+ *
+ * <p>Concurrent reads of the same key are collapsed into one read by the {@link SingleFlight}. A read started after a
+ * write never joins a read started before it.</p>
+ *
+ * <p>Lists of rarely changing catalogs can be served stale-while-revalidate: after the soft TTL the cached list is
+ * still returned at once and refreshed in the background, one refresh per list at a time. Only after the hard TTL
+ * (the expiry of the list cache) a read waits for the data store. Stale reads and refreshes are counted as
+ * {@code dcis.client.cache.stale} and {@code dcis.client.cache.refreshes}. The refresh runs on the worker pool after
+ * the reading request has ended, so the loader of a revalidated list must not depend on the request context (the
+ * catalog clients authenticate with the client credentials instead of the token of the user).</p>
+ *
+ * <p>Every operation exists blocking for the REST clients and non-blocking (suffix {@code Async}) for the reactive REST
+ * clients. Both work on the same caches.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@Slf4j
+class EntityCache {
+    /** Maximum number of IDs the data store accepts within one multi-get. */
+    static final int MAX_IDS = 100;
+
+    private final Cache entities;
+    private final Cache lists;
+    private final SingleFlight flights;
+
+    private final MeterRegistry registry;
+    private final Duration softTtl;
+
+    private final AtomicLong writes = new AtomicLong();
+    private final ConcurrentMap<Object, Boolean> refreshing = new ConcurrentHashMap<>();
+
+
+    /**
+     * @param entities The cache of the single entities.
+     * @param lists The cache of the lists.
+     * @param flights Collapses concurrent reads.
+     */
+    EntityCache(final Cache entities, final Cache lists, final SingleFlight flights) {
+        this(entities, lists, flights, null, null);
+    }
+
+    /**
+     * @param entities The cache of the single entities.
+     * @param lists The cache of the lists. Its expiry is the hard TTL of the lists.
+     * @param flights Collapses concurrent reads.
+     * @param registry The registry for the stale-while-revalidate metrics.
+     * @param softTtl The age after which a list is refreshed in the background or null to disable.
+     */
+    EntityCache(final Cache entities, final Cache lists, final SingleFlight flights,
+                final MeterRegistry registry, final Duration softTtl) {
+        this.entities = entities;
+        this.lists = lists;
+        this.flights = flights;
+        this.registry = registry;
+        this.softTtl = softTtl;
+    }
+
+
+    /**
+     * @param key The ID of the entity.
+     * @param loader Retrieves the entity from the data store if it is not cached.
+     * @param <T> The type of the entity.
+     * @return The entity.
+     */
+    <T> T entity(final Object key, final Supplier<T> loader) {
+        return read(entities, key, loader);
+    }
+
+    /**
+     * @see #entity(Object, Supplier)
+     */
+    <T> Uni<T> entityAsync(final Object key, final Supplier<Uni<T>> loader) {
+        return readAsync(entities, key, loader);
+    }
+
+    /**
+     * Reads many entities. The cached ones are taken from the cache, the others are retrieved with multi-gets of at
+     * most {@link #MAX_IDS} IDs and put into the cache.
+     *
+     * @param ids The IDs of the entities.
+     * @param loader Retrieves the entities with the given IDs from the data store.
+     * @param <T> The type of the entities.
+     * @return The entities found in the order of the IDs. Unknown IDs are skipped.
+     */
+    <T extends PersistedImpl> List<T> entities(final Collection<UUID> ids, final Function<Set<UUID>, List<T>> loader) {
+        Map<UUID, T> found = new HashMap<>();
+        List<Set<UUID>> missing = cached(ids, found);
+
+        for (Set<UUID> chunk : missing) {
+            long before = writes.get();
+
+            List<T> loaded = flights.call(entities.getName(), new CompositeCacheKey(entities.getName(), before, chunk),
+                    () -> loader.apply(chunk));
+
+            store(before, loaded, found).await().indefinitely();
+        }
+
+        return inOrder(ids, found);
+    }
+
+    /**
+     * @see #entities(Collection, Function)
+     */
+    <T extends PersistedImpl> Uni<List<T>> entitiesAsync(
+            final Collection<UUID> ids,
+            final Function<Set<UUID>, Uni<List<T>>> loader
+    ) {
+        return Uni.createFrom().deferred(() -> {
+            Map<UUID, T> found = new ConcurrentHashMap<>();
+            List<Set<UUID>> missing = cached(ids, found);
+
+            return Multi.createFrom().iterable(missing)
+                    .onItem().transformToUniAndConcatenate(chunk -> {
+                        long before = writes.get();
+
+                        return flights.callAsync(entities.getName(),
+                                        new CompositeCacheKey(entities.getName(), before, chunk),
+                                        () -> loader.apply(chunk))
+                                .call(loaded -> store(before, loaded, found));
+                    })
+                    .collect().last()
+                    .map(ignored -> inOrder(ids, found));
+        });
+    }
+
+    /**
+     * @param key The parameters of the list request.
+     * @param loader Retrieves the list from the data store if it is not cached.
+     * @param <T> The type of the list.
+     * @return The list.
+     */
+    <T> T list(final Object key, final Supplier<T> loader) {
+        if (softTtl != null) {
+            return this.<T>revalidating(key, () -> Uni.createFrom().item(loader)).await().indefinitely();
+        }
+
+        return read(lists, key, loader);
+    }
+
+    /**
+     * @see #list(Object, Supplier)
+     */
+    <T> Uni<T> listAsync(final Object key, final Supplier<Uni<T>> loader) {
+        if (softTtl != null) {
+            return revalidating(key, loader);
+        }
+
+        return readAsync(lists, key, loader);
+    }
+
+    /**
+     * Invalidates the written entities and all lists. Has to be called after the write returned.
+     *
+     * @param keys The IDs of the written entities.
+     */
+    void written(final Object... keys) {
+        writtenAsync(keys).await().indefinitely();
+    }
+
+    /**
+     * @see #written(Object...)
+     */
+    Uni<Void> writtenAsync(final Object... keys) {
+        writes.incrementAndGet();
+
+        Uni<Void> result = lists.invalidateAll();
+        for (Object key : keys) {
+            result = result.chain(() -> entities.invalidate(key));
+        }
+        return result;
+    }
+
+    /**
+     * Invalidates the matching entities and all lists.
+     *
+     * @param keys Selects the entity keys to invalidate.
+     */
+    void evict(final Predicate<Object> keys) {
+        writes.incrementAndGet();
+
+        CaffeineCache caffeine = entities.as(CaffeineCache.class);
+        for (Object key : caffeine.keySet()) {
+            if (keys.test(key)) {
+                caffeine.invalidate(key).await().indefinitely();
+            }
+        }
+        lists.invalidateAll().await().indefinitely();
+    }
+
+    /**
+     * Invalidates all entities and lists.
+     */
+    void clear() {
+        writes.incrementAndGet();
+
+        entities.invalidateAll().await().indefinitely();
+        lists.invalidateAll().await().indefinitely();
+    }
+
+
+    private <T> T read(final Cache cache, final Object key, final Supplier<T> loader) {
+        long before = writes.get();
+
+        T result = flights.call(cache.getName(), new CompositeCacheKey(cache.getName(), before, key),
+                () -> cache.<Object, T>get(key, k -> loader.get()).await().indefinitely());
+
+        dropIfWritten(cache, key, before).await().indefinitely();
+        return result;
+    }
+
+    private <T> Uni<T> readAsync(final Cache cache, final Object key, final Supplier<Uni<T>> loader) {
+        return Uni.createFrom().deferred(() -> {
+            long before = writes.get();
+
+            return flights.callAsync(cache.getName(), new CompositeCacheKey(cache.getName(), before, key),
+                            () -> cache.<Object, T>getAsync(key, k -> loader.get()))
+                    .call(() -> dropIfWritten(cache, key, before));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Uni<T> revalidating(final Object key, final Supplier<Uni<T>> loader) {
+        return Uni.createFrom().deferred(() -> {
+            CompletableFuture<Stamped> cached = lists.as(CaffeineCache.class).getIfPresent(key);
+
+            if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+                Stamped entry = cached.join();
+
+                if (entry.isOlderThan(softTtl)) {
+                    registry.counter("dcis.client.cache.stale", "cache", lists.getName()).increment();
+                    refresh(key, loader);
+                }
+
+                return Uni.createFrom().item((T) entry.getValue());
+            }
+
+            long before = writes.get();
+            return flights.callAsync(lists.getName(), new CompositeCacheKey(lists.getName(), before, key),
+                            () -> lists.<Object, Stamped>getAsync(key, k -> loader.get().map(Stamped::of)))
+                    .call(() -> dropIfWritten(lists, key, before))
+                    .map(entry -> (T) entry.getValue());
+        });
+    }
+
+    private <T> void refresh(final Object key, final Supplier<Uni<T>> loader) {
+        if (refreshing.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+
+        long before = writes.get();
+        CaffeineCache caffeine = lists.as(CaffeineCache.class);
+
+        Uni.createFrom().deferred(loader)
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .call(value -> {
+                    caffeine.put(key, CompletableFuture.completedFuture(Stamped.of(value)));
+                    return dropIfWritten(lists, key, before);
+                })
+                .onTermination().invoke(() -> refreshing.remove(key))
+                .subscribe().with(
+                        value -> registry.counter("dcis.client.cache.refreshes",
+                                "cache", lists.getName(), "result", "success").increment(),
+                        failure -> {
+                            registry.counter("dcis.client.cache.refreshes",
+                                    "cache", lists.getName(), "result", "failure").increment();
+                            log.warn("Could not refresh the cached list. cache={}, key={}, error={}",
+                                    lists.getName(), key, failure.getMessage());
+                        }
+                );
+    }
+
+    private Uni<Void> dropIfWritten(final Cache cache, final Object key, final long before) {
+        if (writes.get() == before) {
+            return Uni.createFrom().voidItem();
+        }
+
+        // the value may have been read from the data store before the write.
+        log.trace("Dropped value loaded during a write. cache={}, key={}", cache.getName(), key);
+        return cache.invalidate(key);
+    }
+
+    /**
+     * Collects the cached entities.
+     *
+     * @return The IDs of the entities not cached in chunks of at most {@link #MAX_IDS}.
+     */
+    private <T> List<Set<UUID>> cached(final Collection<UUID> ids, final Map<UUID, T> found) {
+        CaffeineCache caffeine = entities.as(CaffeineCache.class);
+
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : new LinkedHashSet<>(ids)) {
+            CompletableFuture<T> cached = caffeine.getIfPresent(id);
+
+            if (cached != null && cached.isDone() && !cached.isCompletedExceptionally() && cached.join() != null) {
+                found.put(id, cached.join());
+            } else {
+                missing.add(id);
+            }
+        }
+
+        log.trace("Entities read. cache={}, requested={}, missing={}", entities.getName(), ids.size(), missing.size());
+        return IntStream.iterate(0, i -> i < missing.size(), i -> i + MAX_IDS)
+                .mapToObj(i -> Set.copyOf(missing.subList(i, Math.min(i + MAX_IDS, missing.size()))))
+                .toList();
+    }
+
+    private <T extends PersistedImpl> Uni<Void> store(final long before, final List<T> loaded,
+                                                      final Map<UUID, T> found) {
+        CaffeineCache caffeine = entities.as(CaffeineCache.class);
+
+        for (T entity : loaded) {
+            caffeine.put(entity.getId(), CompletableFuture.completedFuture(entity));
+            found.put(entity.getId(), entity);
+        }
+
+        Uni<Void> result = Uni.createFrom().voidItem();
+        if (writes.get() != before) {
+            // the entities may have been read from the data store before the write.
+            for (T entity : loaded) {
+                result = result.chain(() -> caffeine.invalidate(entity.getId()));
+            }
+        }
+        return result;
+    }
+
+    private <T> List<T> inOrder(final Collection<UUID> ids, final Map<UUID, T> found) {
+        return ids.stream().distinct().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+
+    /**
+     * A cached list with the time it has been loaded.
+     */
+    @Value
+    private static class Stamped {
+        Object value;
+        long loaded;
+
+        static Stamped of(final Object value) {
+            return new Stamped(value, System.currentTimeMillis());
+        }
+
+        boolean isOlderThan(final Duration age) {
+            return System.currentTimeMillis() - loaded > age.toMillis();
+        }
+    }
+}
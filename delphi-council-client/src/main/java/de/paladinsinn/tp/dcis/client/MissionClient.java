@@ -11,7 +11,7 @@
 package de.paladinsinn.tp.dcis.client;
 
 import de.paladinsinn.tp.dcis.model.lists.BasicList;
-import io.quarkus.oidc.token.propagation.reactive.AccessTokenRequestReactiveFilter;
+import io.quarkus.oidc.client.reactive.filter.OidcClientRequestReactiveFilter;
 import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
@@ -20,12 +20,10 @@ import javax.ws.rs.Path;
 import javax.ws.rs.QueryParam;
 
 @RegisterRestClient(configKey = "missions-api")
-@RegisterProvider(value = AccessTokenRequestReactiveFilter.class, priority = 5000)
+@RegisterProvider(value = OidcClientRequestReactiveFilter.class, priority = 5000)
+@RegisterProvider(ReadAfterFilter.class)
 @Path("/api/v1/missions")
 public interface MissionClient {
-    String CACHE_NAME = "dc-missions";
-    long CACHE_LOCK_TIMEOUT = 10L;
-
     /**
      * Retrieves a page of data specified by the first element and the size of page.
      *
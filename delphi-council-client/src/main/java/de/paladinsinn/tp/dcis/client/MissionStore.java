@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CompositeCacheKey;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.Duration;
+
+/**
+ * MissionStore -- The cached access to the mission catalog of the data store.
+ *
+ * <p>The mission catalog changes rarely and is not part of the change feed. Its lists are served
+ * stale-while-revalidate (see {@link EntityCache}), so they are at most the soft TTL old when read and never block
+ * before the hard TTL.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@Slf4j
+public class MissionStore {
+    public static final String CACHE_NAME = "dc-missions";
+    public static final String LIST_CACHE_NAME = "dc-mission-lists";
+
+    @Inject
+    @RestClient
+    MissionClient client;
+
+    @Inject
+    SingleFlight flights;
+
+    @CacheName(CACHE_NAME)
+    Cache entities;
+
+    @CacheName(LIST_CACHE_NAME)
+    Cache lists;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "delphi-council.cache.soft-ttl", defaultValue = "PT1M")
+    Duration softTtl;
+
+    private EntityCache cache;
+
+
+    @PostConstruct
+    void init() {
+        cache = new EntityCache(entities, lists, flights, registry, softTtl);
+    }
+
+
+    /**
+     * @see MissionClient#retrieve(long, long)
+     */
+    public BasicList retrieve(final long start, final long size) {
+        return cache.list(new CompositeCacheKey("page", start, size), () -> client.retrieve(start, size));
+    }
+
+    /**
+     * @see MissionClient#retrieve()
+     */
+    public BasicList retrieve() {
+        return cache.list("all", () -> client.retrieve());
+    }
+
+
+    /**
+     * @return The caches shared with the reactive variant of this store.
+     */
+    EntityCache getCache() {
+        return cache;
+    }
+}
@@ -10,22 +10,24 @@
 
 package de.paladinsinn.tp.dcis.client;
 
+import de.paladinsinn.tp.dcis.model.client.Operative;
 import de.paladinsinn.tp.dcis.model.lists.BasicList;
-import io.quarkus.oidc.token.propagation.reactive.AccessTokenRequestReactiveFilter;
+import io.quarkus.oidc.client.reactive.filter.OidcClientRequestReactiveFilter;
 import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.QueryParam;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 @RegisterRestClient(configKey = "operatives-api")
-@RegisterProvider(value = AccessTokenRequestReactiveFilter.class, priority = 5000)
+@RegisterProvider(value = OidcClientRequestReactiveFilter.class, priority = 5000)
+@RegisterProvider(ReadAfterFilter.class)
 @Path("/api/v1/operatives")
 public interface OperativeClient {
-    String CACHE_NAME = "dc-operatives";
-    long CACHE_LOCK_TIMEOUT = 10L;
-
     /**
      * Retrieves a page of data specified by the first element and the size of page.
      *
@@ -47,4 +49,14 @@ public interface OperativeClient {
     @GET
     @Path("/")
     BasicList retrieve();
+
+    /**
+     * Retrieves many operatives with one request.
+     *
+     * @param ids the IDs of the operatives (at most 100).
+     * @return the operatives found in request order. Unknown IDs are skipped.
+     */
+    @GET
+    @Path("/")
+    List<Operative> retrieveAll(@QueryParam("id") Set<UUID> ids);
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.client.Operative;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CompositeCacheKey;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * OperativeStore -- The cached access to the operatives of the data store.
+ *
+ * <p>Single operatives are cached by their ID, the lists in a separate cache. The operatives are written by the
+ * reports of the engagements, so the {@link ChangeTracker} applies all changes. The lists are served
+ * stale-while-revalidate (see {@link EntityCache}).</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@Slf4j
+public class OperativeStore {
+    public static final String CACHE_NAME = "dc-operatives";
+    public static final String LIST_CACHE_NAME = "dc-operative-lists";
+
+    @Inject
+    @RestClient
+    OperativeClient client;
+
+    @Inject
+    SingleFlight flights;
+
+    @CacheName(CACHE_NAME)
+    Cache entities;
+
+    @CacheName(LIST_CACHE_NAME)
+    Cache lists;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "delphi-council.cache.soft-ttl", defaultValue = "PT1M")
+    Duration softTtl;
+
+    private EntityCache cache;
+
+
+    @PostConstruct
+    void init() {
+        cache = new EntityCache(entities, lists, flights, registry, softTtl);
+    }
+
+
+    /**
+     * @see OperativeClient#retrieve(long, long)
+     */
+    public BasicList retrieve(final long start, final long size) {
+        return cache.list(new CompositeCacheKey("page", start, size), () -> client.retrieve(start, size));
+    }
+
+    /**
+     * @see OperativeClient#retrieve()
+     */
+    public BasicList retrieve() {
+        return cache.list("all", () -> client.retrieve());
+    }
+
+    /**
+     * @param id The ID of the operative.
+     * @return The operative or null if there is no operative with this ID.
+     */
+    public Operative retrieve(final UUID id) {
+        List<Operative> result = retrieveAll(Set.of(id));
+
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Retrieves many operatives (e.g. all players of an engagement). Only the operatives not cached yet are
+     * requested, with one multi-get per 100 IDs.
+     *
+     * @param ids The IDs of the operatives.
+     * @return The operatives found in the order of the IDs.
+     */
+    public List<Operative> retrieveAll(final Set<UUID> ids) {
+        return cache.entities(ids, client::retrieveAll);
+    }
+
+
+    /**
+     * Evicts operatives changed in the data store (see {@link ChangeTracker}).
+     *
+     * @param ids The IDs of the changed operatives.
+     */
+    void changed(final Set<UUID> ids) {
+        cache.evict(ids::contains);
+    }
+
+    /**
+     * @return The caches shared with the reactive variant of this store.
+     */
+    EntityCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Evicts all cached operatives.
+     */
+    void clear() {
+        cache.clear();
+    }
+}
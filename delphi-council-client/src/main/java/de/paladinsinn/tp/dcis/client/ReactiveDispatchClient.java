@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.batch.BatchResult;
+import de.paladinsinn.tp.dcis.model.client.Operation;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.quarkus.oidc.token.propagation.reactive.AccessTokenRequestReactiveFilter;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
+import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * ReactiveDispatchClient -- The non-blocking variant of the {@link DispatchClient}.
+ *
+ * <p>Same API, same configuration and token propagation, but the calls return a {@link Uni} instead of blocking the
+ * calling thread.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@RegisterRestClient(configKey = "dispatches-api")
+@RegisterProvider(value = AccessTokenRequestReactiveFilter.class, priority = 5000)
+@RegisterProvider(ReadAfterFilter.class)
+@Path("/api/v1/dispatches")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public interface ReactiveDispatchClient {
+    @POST
+    @Path("/")
+    Uni<Operation> create(final Operation data);
+
+    /**
+     * Retrieves a page of data specified by the first element and the size of page.
+     *
+     * @param start the first element to retrieve.
+     * @param size the size of the page to retrieve.
+     * @return A list containing the paging data and the elements retrieved in standard format.
+     */
+    @GET
+    @Path("/")
+    Uni<BasicList> retrieve(
+            @QueryParam("start") long start,
+            @QueryParam("size") long size
+    );
+
+    /**
+     * Retrieves a page of data following the given cursor (keyset paging). The latency of the request is independent
+     * of the position of the page within the total list.
+     *
+     * @param cursor the cursor delivered with the previous page ({@link BasicList#getNext()}) or null for the first page.
+     * @param size the size of the page to retrieve.
+     * @return A list containing the paging data, the elements retrieved and the cursor for the next page.
+     */
+    @GET
+    @Path("/")
+    Uni<BasicList> retrieve(
+            @QueryParam("cursor") String cursor,
+            @QueryParam("size") long size
+    );
+
+    /**
+     * Retrieves all elements of the type.
+     * @return A list containing all elements of the store of this type.
+     */
+    @GET
+    @Path("/")
+    Uni<BasicList> retrieve();
+
+    /**
+     * Revalidates a cached page (see {@link #retrieve(long, long)}).
+     *
+     * @param start the first element to retrieve.
+     * @param size the size of the page to retrieve.
+     * @param etag the ETag delivered with the cached page or null.
+     * @return 304 if the list did not change since the ETag, else 200 with the page and its new ETag.
+     */
+    @GET
+    @Path("/")
+    Uni<Response> revalidate(
+            @QueryParam("start") long start,
+            @QueryParam("size") long size,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String etag
+    );
+
+    /**
+     * Revalidates a cached page (see {@link #retrieve(String, long)}).
+     *
+     * @param cursor the cursor delivered with the previous page or null for the first page.
+     * @param size the size of the page to retrieve.
+     * @param etag the ETag delivered with the cached page or null.
+     * @return 304 if the list did not change since the ETag, else 200 with the page and its new ETag.
+     */
+    @GET
+    @Path("/")
+    Uni<Response> revalidate(
+            @QueryParam("cursor") String cursor,
+            @QueryParam("size") long size,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String etag
+    );
+
+    /**
+     * Revalidates the cached list of all elements (see {@link #retrieve()}).
+     *
+     * @param etag the ETag delivered with the cached list or null.
+     * @return 304 if the list did not change since the ETag, else 200 with the list and its new ETag.
+     */
+    @GET
+    @Path("/")
+    Uni<Response> revalidate(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String etag);
+
+    @GET
+    @Path("/gm/{id}")
+    Uni<BasicList> retrieveByGM(@PathParam("id") final String gm, @QueryParam("start") final int start, @QueryParam("size") final int size);
+
+    @GET
+    @Path("/operative/{id}")
+    Uni<BasicList> retrieveByOperative(@PathParam("id") final String gm, @QueryParam("start") final int start, @QueryParam("size") final int size);
+
+
+    @GET
+    @Path("/{id}")
+    Uni<Operation> retrieve(@PathParam("id") UUID id);
+
+    /**
+     * Revalidates a cached dispatch (see {@link #retrieve(UUID)}).
+     *
+     * @param id the ID of the dispatch.
+     * @param etag the ETag delivered with the cached dispatch or null.
+     * @return 304 if the dispatch did not change since the ETag, else 200 with the dispatch and its new ETag.
+     */
+    @GET
+    @Path("/{id}")
+    Uni<Response> revalidate(@PathParam("id") UUID id, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String etag);
+
+    /**
+     * Retrieves many dispatches with one request.
+     *
+     * @param ids the IDs of the dispatches (at most 100).
+     * @return the dispatches found in request order. Unknown IDs are skipped.
+     */
+    @GET
+    @Path("/")
+    Uni<List<Operation>> retrieveAll(@QueryParam("id") Set<UUID> ids);
+
+
+    @PUT
+    @Path("/{id}")
+    Uni<Void> update(@PathParam("id") final UUID id, final Operation data);
+
+
+    /**
+     * Creates and updates many dispatches within one request and one transaction on the server.
+     *
+     * @param data the dispatches to store. Dispatches without a known ID are created.
+     * @return the outcome for every dispatch in request order.
+     */
+    @POST
+    @Path("/batch")
+    Uni<BatchResult> batch(final List<Operation> data);
+
+
+    @DELETE
+    @Path("/{id}")
+    Uni<Void> delete(@PathParam("id") final UUID id);
+
+
+    /**
+     * @return All dispatches as stream of list entries.
+     */
+    default Multi<BasicData> stream() {
+        return retrieve().onItem().transformToMulti(list -> Multi.createFrom().iterable(list.getData()));
+    }
+}
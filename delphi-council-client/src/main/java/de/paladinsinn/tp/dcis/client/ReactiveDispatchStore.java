@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.batch.BatchResult;
+import de.paladinsinn.tp.dcis.model.client.Operation;
+import de.paladinsinn.tp.dcis.model.client.PersistedImpl;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.quarkus.cache.CompositeCacheKey;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * ReactiveDispatchStore -- The non-blocking variant of the {@link DispatchStore}.
+ *
+ * <p>Uses the caches of the {@link DispatchStore}, so blocking and non-blocking callers see the same entities and
+ * the writes of both invalidate them the same way.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@Slf4j
+public class ReactiveDispatchStore {
+    @Inject
+    @RestClient
+    ReactiveDispatchClient client;
+
+    @Inject
+    DispatchStore store;
+
+    @Inject
+    ReactiveEngagementStore engagements;
+
+
+    public Uni<Operation> create(final Operation data) {
+        return client.create(data)
+                .eventually(() -> store.getCache().writtenAsync(data.getId()));
+    }
+
+    /**
+     * @see DispatchStore#retrieve(long, long)
+     */
+    public Uni<BasicList> retrieve(final long start, final long size) {
+        CompositeCacheKey key = new CompositeCacheKey("page", start, size);
+
+        return store.getCache().listAsync(key, () -> store.getValidators().loadAsync(key, BasicList.class,
+                etag -> client.revalidate(start, size, etag)));
+    }
+
+    /**
+     * @see DispatchStore#retrieve(String, long)
+     */
+    public Uni<BasicList> retrieve(final String cursor, final long size) {
+        CompositeCacheKey key = new CompositeCacheKey("cursor", Objects.toString(cursor, ""), size);
+
+        return store.getCache().listAsync(key, () -> store.getValidators().loadAsync(key, BasicList.class,
+                etag -> client.revalidate(cursor, size, etag)));
+    }
+
+    /**
+     * @see DispatchStore#retrieve()
+     */
+    public Uni<BasicList> retrieve() {
+        return store.getCache().listAsync("all",
+                () -> store.getValidators().loadAsync("all", BasicList.class, client::revalidate));
+    }
+
+    /**
+     * @return All dispatches as stream of list entries.
+     */
+    public Multi<BasicData> stream() {
+        return retrieve().onItem().transformToMulti(list -> Multi.createFrom().iterable(list.getData()));
+    }
+
+    public Uni<BasicList> retrieveByGM(final String gm, final int start, final int size) {
+        return store.getCache().listAsync(new CompositeCacheKey("gm", gm, start, size),
+                () -> client.retrieveByGM(gm, start, size));
+    }
+
+    public Uni<BasicList> retrieveByOperative(final String operative, final int start, final int size) {
+        return store.getCache().listAsync(new CompositeCacheKey("operative", operative, start, size),
+                () -> client.retrieveByOperative(operative, start, size));
+    }
+
+    public Uni<Operation> retrieve(final UUID id) {
+        return store.getCache().entityAsync(id,
+                () -> store.getValidators().loadAsync(id, Operation.class, etag -> client.revalidate(id, etag)));
+    }
+
+    /**
+     * @see DispatchStore#retrieveAll(Set)
+     */
+    public Uni<List<Operation>> retrieveAll(final Set<UUID> ids) {
+        return store.getCache().entitiesAsync(ids, client::retrieveAll);
+    }
+
+    public Uni<Void> update(final UUID id, final Operation data) {
+        return client.update(id, data)
+                .eventually(() -> store.getCache().writtenAsync(id));
+    }
+
+    /**
+     * @see DispatchStore#batch(List)
+     */
+    public Uni<BatchResult> batch(final List<Operation> data) {
+        return client.batch(data)
+                .eventually(() -> store.getCache().writtenAsync(
+                        data.stream().map(PersistedImpl::getId).filter(Objects::nonNull).toArray()));
+    }
+
+    public Uni<Void> delete(final UUID id) {
+        return client.delete(id)
+                .eventually(() -> store.getCache().writtenAsync(id))
+                .eventually(() -> engagements.changed(Set.of(id)));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.client.DispatchReport;
+import de.paladinsinn.tp.dcis.model.client.Operation;
+import de.paladinsinn.tp.dcis.model.client.Outcome;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.quarkus.cache.CompositeCacheKey;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * ReactiveEngagementStore -- The non-blocking variant of the {@link EngagementStore}.
+ *
+ * <p>Uses the caches of the {@link EngagementStore}, so blocking and non-blocking callers see the same entities and
+ * the writes of both invalidate them the same way.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@Slf4j
+public class ReactiveEngagementStore {
+    @Inject
+    @RestClient
+    ReactiveEngagementClient client;
+
+    @Inject
+    EngagementStore store;
+
+
+    /**
+     * @see EngagementStore#create(UUID, DispatchReport)
+     */
+    public Uni<Operation> create(final UUID dispatch, final DispatchReport data) {
+        return client.create(dispatch, data)
+                .eventually(() -> store.getCache().writtenAsync(EngagementStore.key(dispatch, data.getId())));
+    }
+
+    /**
+     * @see EngagementStore#retrieve(UUID, long, long)
+     */
+    public Uni<BasicList> retrieve(final UUID dispatch, final long start, final long size) {
+        return store.getCache().listAsync(new CompositeCacheKey("page", dispatch, start, size),
+                () -> client.retrieve(dispatch, start, size));
+    }
+
+    /**
+     * @see EngagementStore#retrieve(UUID)
+     */
+    public Uni<BasicList> retrieve(final UUID dispatch) {
+        return store.getCache().listAsync(new CompositeCacheKey("all", dispatch), () -> client.retrieve(dispatch));
+    }
+
+    /**
+     * @param dispatch The dispatch of the engagements.
+     * @return All engagements of the dispatch as stream of list entries.
+     */
+    public Multi<BasicData> stream(final UUID dispatch) {
+        return retrieve(dispatch).onItem().transformToMulti(list -> Multi.createFrom().iterable(list.getData()));
+    }
+
+    public Uni<DispatchReport> retrieve(final UUID dispatch, final UUID engagement) {
+        return store.getCache().entityAsync(EngagementStore.key(dispatch, engagement),
+                () -> client.retrieve(dispatch, engagement));
+    }
+
+    public Uni<BasicList> retrieveByGM(final UUID dispatch, final String gm, final int start, final int size) {
+        return store.getCache().listAsync(new CompositeCacheKey("gm", dispatch, gm, start, size),
+                () -> client.retrieveByGM(dispatch, gm, start, size));
+    }
+
+    public Uni<BasicList> retrieveByOperative(final UUID dispatch, final String operative, final int start,
+                                              final int size) {
+        return store.getCache().listAsync(new CompositeCacheKey("operative", dispatch, operative, start, size),
+                () -> client.retrieveByOperative(dispatch, operative, start, size));
+    }
+
+    public Uni<Void> addOperative(final UUID dispatch, final UUID engagement, final UUID operative,
+                                  final Outcome outcome) {
+        return client.addOperative(dispatch, engagement, operative, outcome)
+                .eventually(() -> store.getCache().writtenAsync(EngagementStore.key(dispatch, engagement)));
+    }
+
+    public Uni<Void> updateOperative(final UUID dispatch, final UUID engagement, final UUID operative,
+                                     final Outcome outcome) {
+        return client.updateOperative(dispatch, engagement, operative, outcome)
+                .eventually(() -> store.getCache().writtenAsync(EngagementStore.key(dispatch, engagement)));
+    }
+
+    public Uni<Void> removeOperative(final UUID dispatch, final UUID engagement, final UUID operative) {
+        return client.removeOperative(dispatch, engagement, operative)
+                .eventually(() -> store.getCache().writtenAsync(EngagementStore.key(dispatch, engagement)));
+    }
+
+    public Uni<Void> update(final UUID dispatch, final UUID engagement, final Operation data) {
+        return client.update(dispatch, engagement, data)
+                .eventually(() -> store.getCache().writtenAsync(EngagementStore.key(dispatch, engagement)));
+    }
+
+    public Uni<Void> delete(final UUID dispatch, final UUID engagement) {
+        return client.delete(dispatch, engagement)
+                .eventually(() -> store.getCache().writtenAsync(EngagementStore.key(dispatch, engagement)));
+    }
+
+
+    /**
+     * Evicts the engagements of deleted dispatches. The eviction walks the cache keys, so it runs on a worker thread.
+     *
+     * @param ids The IDs of the changed engagements or their dispatches.
+     */
+    Uni<Void> changed(final Set<UUID> ids) {
+        return Uni.createFrom().voidItem()
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                .invoke(() -> store.changed(ids));
+    }
+}
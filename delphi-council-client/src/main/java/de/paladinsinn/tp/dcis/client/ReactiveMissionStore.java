@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.quarkus.cache.CompositeCacheKey;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * ReactiveMissionStore -- The non-blocking variant of the {@link MissionStore}.
+ *
+ * <p>Uses the caches of the {@link MissionStore}, so blocking and non-blocking callers see the same lists.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@Slf4j
+public class ReactiveMissionStore {
+    @Inject
+    @RestClient
+    ReactiveMissionClient client;
+
+    @Inject
+    MissionStore store;
+
+
+    /**
+     * @see MissionStore#retrieve(long, long)
+     */
+    public Uni<BasicList> retrieve(final long start, final long size) {
+        return store.getCache().listAsync(new CompositeCacheKey("page", start, size),
+                () -> client.retrieve(start, size));
+    }
+
+    /**
+     * @see MissionStore#retrieve()
+     */
+    public Uni<BasicList> retrieve() {
+        return store.getCache().listAsync("all", () -> client.retrieve());
+    }
+
+    /**
+     * @return All missions as stream of list entries.
+     */
+    public Multi<BasicData> stream() {
+        return retrieve().onItem().transformToMulti(list -> Multi.createFrom().iterable(list.getData()));
+    }
+}
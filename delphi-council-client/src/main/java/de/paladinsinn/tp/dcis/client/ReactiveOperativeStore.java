@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import de.paladinsinn.tp.dcis.model.client.Operative;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.quarkus.cache.CompositeCacheKey;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * ReactiveOperativeStore -- The non-blocking variant of the {@link OperativeStore}.
+ *
+ * <p>Uses the caches of the {@link OperativeStore}, so blocking and non-blocking callers see the same entities.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@Slf4j
+public class ReactiveOperativeStore {
+    @Inject
+    @RestClient
+    ReactiveOperativeClient client;
+
+    @Inject
+    OperativeStore store;
+
+
+    /**
+     * @see OperativeStore#retrieve(long, long)
+     */
+    public Uni<BasicList> retrieve(final long start, final long size) {
+        return store.getCache().listAsync(new CompositeCacheKey("page", start, size),
+                () -> client.retrieve(start, size));
+    }
+
+    /**
+     * @see OperativeStore#retrieve()
+     */
+    public Uni<BasicList> retrieve() {
+        return store.getCache().listAsync("all", () -> client.retrieve());
+    }
+
+    /**
+     * @return All operatives as stream of list entries.
+     */
+    public Multi<BasicData> stream() {
+        return retrieve().onItem().transformToMulti(list -> Multi.createFrom().iterable(list.getData()));
+    }
+
+    /**
+     * @see OperativeStore#retrieve(UUID)
+     */
+    public Uni<Operative> retrieve(final UUID id) {
+        return retrieveAll(Set.of(id)).map(result -> result.isEmpty() ? null : result.get(0));
+    }
+
+    /**
+     * @see OperativeStore#retrieveAll(Set)
+     */
+    public Uni<List<Operative>> retrieveAll(final Set<UUID> ids) {
+        return store.getCache().entitiesAsync(ids, client::retrieveAll);
+    }
+}
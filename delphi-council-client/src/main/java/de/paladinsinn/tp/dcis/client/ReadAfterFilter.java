@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2022-2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.paladinsinn.tp.dcis.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ReadAfterFilter -- Lets the reads following a write see that write.
+ *
+ * <p>The service answers every successful write with the time of the write in the header {@value #READ_AFTER} and
+ * serves requests carrying that header from the read replica only once the replica contains the write. The filter
+ * keeps the newest time received by any client and sends it with every request, so the stores never reload an old
+ * state or get a 304 for an old ETag after their own write.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-28
+ */
+@Slf4j
+public class ReadAfterFilter implements ClientRequestFilter, ClientResponseFilter {
+    /** Header with the time of the last write (epoch millis). */
+    public static final String READ_AFTER = "X-Dcis-Read-After";
+
+    /** Shared by all clients, since a write through one API changes the reads of the others. */
+    private static final AtomicLong LAST_WRITE = new AtomicLong();
+
+
+    @Override
+    public void filter(final ClientRequestContext request) {
+        long lastWrite = LAST_WRITE.get();
+
+        if (lastWrite > 0L) {
+            request.getHeaders().putSingle(READ_AFTER, Long.toString(lastWrite));
+        }
+    }
+
+    @Override
+    public void filter(final ClientRequestContext request, final ClientResponseContext response) {
+        String value = response.getHeaderString(READ_AFTER);
+        if (value == null) {
+            return;
+        }
+
+        try {
+            long written = Long.parseLong(value.trim());
+            LAST_WRITE.accumulateAndGet(written, Math::max);
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring invalid read-after header. value={}", value);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * SingleFlight -- Collapses concurrent identical calls to the data store into one call.
+ *
+ * <p>The first caller of a key executes the call. Callers arriving with the same key while the call is running wait
+ * for it and get the same result or exception. The key is forgotten when the call returns, so later callers execute
+ * a new call. The executed and collapsed calls are counted as {@code dcis.client.calls}.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class SingleFlight {
+    private static final String METRIC = "dcis.client.calls";
+
+    private final MeterRegistry registry;
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> running = new ConcurrentHashMap<>();
+
+
+    /**
+     * @param name The name of the call (used as metric tag).
+     * @param key The key identifying identical calls. It has to contain all parameters of the call.
+     * @param call The call to the data store.
+     * @param <T> The type of the result.
+     * @return The result of the call.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T call(final String name, final Object key, final Supplier<T> call) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = running.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            registry.counter(METRIC, "call", name, "result", "collapsed").increment();
+            log.trace("Joined running call. call={}, key={}", name, key);
+
+            return (T) await(existing);
+        }
+
+        registry.counter(METRIC, "call", name, "result", "executed").increment();
+        try {
+            T result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(key, flight);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #call(String, Object, Supplier)}. If the executing subscriber cancels, the waiting
+     * callers fail with a {@link CancellationException}.
+     *
+     * @param name The name of the call (used as metric tag).
+     * @param key The key identifying identical calls. It has to contain all parameters of the call.
+     * @param call The call to the data store.
+     * @param <T> The type of the result.
+     * @return The result of the call.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Uni<T> callAsync(final String name, final Object key, final Supplier<Uni<T>> call) {
+        return Uni.createFrom().deferred(() -> {
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            CompletableFuture<Object> existing = running.putIfAbsent(key, flight);
+
+            if (existing != null) {
+                registry.counter(METRIC, "call", name, "result", "collapsed").increment();
+                log.trace("Joined running call. call={}, key={}", name, key);
+
+                return Uni.createFrom().completionStage(existing).map(result -> (T) result);
+            }
+
+            registry.counter(METRIC, "call", name, "result", "executed").increment();
+            return call.get()
+                    .onItemOrFailure().invoke((result, failure) -> {
+                        running.remove(key, flight);
+
+                        if (failure != null) {
+                            flight.completeExceptionally(failure);
+                        } else {
+                            flight.complete(result);
+                        }
+                    })
+                    .onCancellation().invoke(() -> {
+                        running.remove(key, flight);
+                        flight.completeExceptionally(new CancellationException("The call has been cancelled."));
+                    });
+        });
+    }
+
+    private Object await(final CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.paladinsinn.tp.dcis.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CaffeineCache;
+import io.smallrye.mutiny.Uni;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Validators -- The last body and ETag delivered by the data store for every cached key.
+ *
+ * <p>The validators outlive the entries of the {@link EntityCache}: when an entry expired or has been evicted, the
+ * reload sends the ETag as {@code If-None-Match} and reuses the kept body when the data store answers with 304. The
+ * ETag decides whether the body is still valid, so the validators are not invalidated by writes. Responses without
+ * ETag are returned as they are and not kept. The revalidations are counted as {@code dcis.client.revalidations}.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@Slf4j
+class Validators {
+    private static final String METRIC = "dcis.client.revalidations";
+
+    private final CaffeineCache validators;
+    private final MeterRegistry registry;
+
+
+    /**
+     * @param validators The cache of the bodies and ETags.
+     * @param registry The registry for the revalidation metrics.
+     */
+    Validators(final Cache validators, final MeterRegistry registry) {
+        this.validators = validators.as(CaffeineCache.class);
+        this.registry = registry;
+    }
+
+
+    /**
+     * Loads the value from the data store, conditionally if a validator for the key is known.
+     *
+     * @param key The cache key of the value.
+     * @param type The type of the body.
+     * @param request Sends the request with the given {@code If-None-Match} value (null for an unconditional request).
+     * @param <T> The type of the body.
+     * @return The body sent by the data store or the kept body if the data store answered with 304.
+     */
+    <T> T load(final Object key, final Class<T> type, final Function<String, Response> request) {
+        Validated known = known(key);
+
+        return read(key, type, known, request.apply(known != null ? known.getTag() : null));
+    }
+
+    /**
+     * @see #load(Object, Class, Function)
+     */
+    <T> Uni<T> loadAsync(final Object key, final Class<T> type, final Function<String, Uni<Response>> request) {
+        return Uni.createFrom().deferred(() -> {
+            Validated known = known(key);
+
+            return request.apply(known != null ? known.getTag() : null)
+                    .map(response -> read(key, type, known, response));
+        });
+    }
+
+
+    private Validated known(final Object key) {
+        CompletableFuture<Validated> cached = validators.getIfPresent(key);
+
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            return cached.join();
+        }
+        return null;
+    }
+
+    private <T> T read(final Object key, final Class<T> type, final Validated known, final Response response) {
+        try (response) {
+            if (known != null && response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+                registry.counter(METRIC, "cache", validators.getName(), "result", "not-modified").increment();
+                log.trace("Reused body. cache={}, key={}, etag={}", validators.getName(), key, known.getTag());
+
+                return type.cast(known.getValue());
+            }
+
+            T result = response.readEntity(type);
+            String tag = response.getHeaderString(HttpHeaders.ETAG);
+
+            if (tag != null && result != null) {
+                validators.put(key, CompletableFuture.completedFuture(new Validated(tag, result)));
+            } else {
+                // may run on the event loop, the invalidation of the caffeine cache does not block.
+                validators.invalidate(key).subscribe().with(ignored -> { });
+            }
+
+            if (known != null) {
+                registry.counter(METRIC, "cache", validators.getName(), "result", "modified").increment();
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * A body together with the ETag the data store delivered it with.
+     */
+    @Value
+    private static class Validated {
+        String tag;
+        Object value;
+    }
+}
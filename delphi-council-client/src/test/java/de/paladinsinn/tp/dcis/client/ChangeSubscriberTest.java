@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * ChangeSubscriberTest -- The change stream is opened at startup without any user and has to bring its own token.
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-03-01
+ */
+@QuarkusTest
+@QuarkusTestResource(SecuredStoreStub.class)
+public class ChangeSubscriberTest {
+    @Inject
+    ChangeTracker tracker;
+
+
+    @Test
+    void shouldCatchUpWithServiceTokenWhenStreamIsOpenedAtStartup() throws InterruptedException {
+        // the subscriber has been started with the application, the pushed change set starts the catch up.
+        long deadline = System.currentTimeMillis() + 10_000L;
+        while (tracker.getMark() != SecuredStoreStub.REVISION && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100L);
+        }
+
+        WireMockServer server = SecuredStoreStub.server();
+        int requests = server.findAll(getRequestedFor(urlMatching("/api/v1/changes.*"))).size();
+        int authorized = server.findAll(getRequestedFor(urlMatching("/api/v1/changes.*"))
+                .withHeader("Authorization", equalTo(SecuredStoreStub.BEARER))).size();
+
+        assertThat(tracker.getMark(), is(SecuredStoreStub.REVISION));
+        assertThat(server.findAll(getRequestedFor(urlEqualTo("/api/v1/changes/stream"))), not(empty()));
+        assertThat(authorized, is(requests));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * MissionStoreTest -- The stale mission catalog is refreshed in the background, outside of the reading request.
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-03-01
+ */
+@QuarkusTest
+@QuarkusTestResource(SecuredStoreStub.class)
+public class MissionStoreTest {
+    private static final String MISSIONS = "/api/v1/missions/?";
+    private static final String SCENARIO = "mission catalog";
+    private static final String CHANGED = "changed";
+
+    @Inject
+    MissionStore store;
+
+
+    @Test
+    void shouldReplaceStaleListWhenRefreshedInBackground() throws InterruptedException {
+        WireMockServer server = SecuredStoreStub.server();
+        server.stubFor(get(urlMatching(MISSIONS))
+                .withHeader("Authorization", equalTo(SecuredStoreStub.BEARER))
+                .inScenario(SCENARIO).whenScenarioStateIs(Scenario.STARTED).willSetStateTo(CHANGED)
+                .willReturn(okJson("{\"kind\":\"missions\",\"next\":\"old\",\"data\":[]}")));
+        server.stubFor(get(urlMatching(MISSIONS))
+                .withHeader("Authorization", equalTo(SecuredStoreStub.BEARER))
+                .inScenario(SCENARIO).whenScenarioStateIs(CHANGED)
+                .willReturn(okJson("{\"kind\":\"missions\",\"next\":\"new\",\"data\":[]}")));
+
+        assertThat(store.retrieve().getNext(), is("old"));
+
+        Thread.sleep(Duration.parse(SecuredStoreStub.SOFT_TTL).toMillis() * 2);
+
+        // the stale list is still served at once, the refresh runs on the worker pool.
+        assertThat(store.retrieve().getNext(), is("old"));
+
+        BasicList result = store.retrieve();
+        long deadline = System.currentTimeMillis() + 5_000L;
+        while (!"new".equals(result.getNext()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50L);
+            result = store.retrieve();
+        }
+
+        assertThat(result.getNext(), is("new"));
+        assertThat(server.findAll(getRequestedFor(urlMatching(MISSIONS))).size(), greaterThanOrEqualTo(2));
+        assertThat(server.findAll(getRequestedFor(urlMatching(MISSIONS))
+                .withHeader("Authorization", equalTo(SecuredStoreStub.BEARER))).size(),
+                is(server.findAll(getRequestedFor(urlMatching(MISSIONS))).size()));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * SecuredStoreStub -- A data store and an OIDC token endpoint stubbed with WireMock.
+ *
+ * <p>The data store only answers requests carrying the service token issued by the token endpoint to the client
+ * credentials configured here. Every other request gets a 401. The change feed is at revision {@value #REVISION}
+ * and the change stream pushes a single change set at that revision before closing. The cached catalogs get stale
+ * after {@value #SOFT_TTL}.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-03-01
+ */
+public class SecuredStoreStub implements QuarkusTestResourceLifecycleManager {
+    public static final String TOKEN = "service-token";
+    public static final String BEARER = "Bearer " + TOKEN;
+    public static final long REVISION = 7L;
+    public static final String SOFT_TTL = "PT0.2S";
+
+    private static final String CLIENT_ID = "dcis-client";
+    private static final String CLIENT_SECRET = "dcis-secret";
+
+    private static WireMockServer server;
+
+
+    /**
+     * @return The running stub to register further stubs and to verify the requests.
+     */
+    public static WireMockServer server() {
+        return server;
+    }
+
+    @Override
+    public Map<String, String> start() {
+        server = new WireMockServer(wireMockConfig().dynamicPort());
+        server.start();
+
+        server.stubFor(any(anyUrl()).atPriority(10).willReturn(unauthorized()));
+        server.stubFor(post(urlEqualTo("/token"))
+                .withRequestBody(containing("grant_type=client_credentials"))
+                .withBasicAuth(CLIENT_ID, CLIENT_SECRET)
+                .willReturn(okJson("{\"access_token\":\"" + TOKEN + "\",\"token_type\":\"Bearer\","
+                        + "\"expires_in\":300}")));
+
+        server.stubFor(get(urlEqualTo("/api/v1/changes/stream"))
+                .withHeader("Authorization", equalTo(BEARER))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "text/event-stream")
+                        .withBody("data: {\"since\":" + REVISION + ",\"until\":" + REVISION + ",\"changes\":[]}\n\n")));
+        server.stubFor(get(urlPathEqualTo("/api/v1/changes"))
+                .withHeader("Authorization", equalTo(BEARER))
+                .willReturn(okJson("{\"since\":-1,\"until\":" + REVISION + ",\"changes\":[]}")));
+
+        return Map.of(
+                "DC_STORE_API", server.baseUrl(),
+                "quarkus.oidc-client.auth-server-url", server.baseUrl(),
+                "quarkus.oidc-client.discovery-enabled", "false",
+                "quarkus.oidc-client.token-path", "/token",
+                "quarkus.oidc-client.client-id", CLIENT_ID,
+                "quarkus.oidc-client.credentials.secret", CLIENT_SECRET,
+                "delphi-council.cache.soft-ttl", SOFT_TTL,
+                "quarkus.oidc.tenant-enabled", "false",
+                "quarkus.devservices.enabled", "false"
+        );
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+    }
+}
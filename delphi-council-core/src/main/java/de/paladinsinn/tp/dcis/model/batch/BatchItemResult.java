@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.model.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * BatchItemResult -- The result of a single element of a batch request.
+ *
+ * @author klenkes {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-18
+ */
+@Schema(description = "Result of a single element of a batch request.")
+@Jacksonized
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@SuperBuilder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+public class BatchItemResult implements Serializable {
+    public enum Status {
+        CREATED,
+        UPDATED,
+        CONFLICT,
+        INVALID
+    }
+
+    @Schema(description = "Position of the element within the request.", required = true)
+    private int index;
+
+    @Schema(description = "ID of the element.", nullable = true)
+    private UUID id;
+
+    @Schema(description = "Outcome for this element.", required = true)
+    private Status status;
+
+    @Schema(description = "Reason why the element has not been stored.", nullable = true)
+    private String message;
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.model.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BatchResult -- The results of a batch request in the order of the request elements.
+ *
+ * @author klenkes {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-18
+ */
+@Schema(description = "Results of a batch request.")
+@Jacksonized
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@SuperBuilder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
+public class BatchResult implements Serializable {
+    @ToString.Include
+    @Schema(description = "Number of created elements.")
+    private int created;
+
+    @ToString.Include
+    @Schema(description = "Number of updated elements.")
+    private int updated;
+
+    @ToString.Include
+    @Schema(description = "Number of rejected elements.")
+    private int rejected;
+
+    @Builder.Default
+    @Schema(description = "The results of the single elements in request order.", required = true)
+    private List<BatchItemResult> results = new ArrayList<>();
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.model.changes;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ChangeSet -- The entities changed after a revision (the high-water mark of the client) up to a new high-water mark.
+ *
+ * <p>The client stores {@link #getUntil()} and sends it as {@code since} with the next request.</p>
+ *
+ * @author klenkes {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@Schema(description = "Entities changed between two revisions.")
+@Jacksonized
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@SuperBuilder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
+public class ChangeSet implements Serializable {
+    @ToString.Include
+    @Schema(description = "The revision the changes start after (exclusive).", required = true)
+    private long since;
+
+    @ToString.Include
+    @Schema(description = "The new high-water mark: the last revision contained (inclusive).", required = true)
+    private long until;
+
+    @ToString.Include
+    @Schema(description = "True if there are further changes after 'until'. The client should ask again immediately.")
+    private boolean more;
+
+    @Builder.Default
+    @Schema(description = "The changed entities. Every entity is contained once with its last change.", required = true)
+    private List<ChangedEntity> changes = new ArrayList<>();
+}
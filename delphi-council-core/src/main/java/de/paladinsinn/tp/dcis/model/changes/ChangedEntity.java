@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.model.changes;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * ChangedEntity -- An entity changed within the revisions of a change set.
+ *
+ * @author klenkes {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@Schema(description = "An entity changed within the revisions of a change set.")
+@Jacksonized
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+@SuperBuilder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+public class ChangedEntity implements Serializable {
+    /** Type name of dispatches. */
+    public static final String DISPATCH = "dispatch";
+    /** Type name of engagements. */
+    public static final String ENGAGEMENT = "engagement";
+    /** Type name of operatives. */
+    public static final String OPERATIVE = "operative";
+
+    @Schema(description = "Type of the entity: dispatch, engagement or operative.", required = true)
+    private String type;
+
+    @Schema(description = "ID of the entity.", required = true)
+    private UUID id;
+
+    @Schema(description = "The last revision changing the entity within the change set.", required = true)
+    private long revision;
+
+    @Schema(description = "True if the entity has been deleted by this revision.")
+    private boolean deleted;
+}
@@ -54,6 +54,10 @@ public class BasicList implements HasKind, Serializable {
     @Schema(description = "The pagination of this result set.", required = true)
     private Paging page;
 
+    @ToString.Include
+    @Schema(description = "Opaque cursor for retrieving the next page. Absent if there is no further page.", nullable = true)
+    private String next;
+
     @Builder.Default
     @NotNull
     @Schema(description = "The data itself", required = true, minItems = 0, maxItems = 2147483647)
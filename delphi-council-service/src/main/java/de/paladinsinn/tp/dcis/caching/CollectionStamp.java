@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.caching;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import javax.ws.rs.core.EntityTag;
+import java.time.OffsetDateTime;
+
+/**
+ * CollectionStamp -- The aggregated version information of a whole table used as HTTP validator for lists.
+ *
+ * <p>Every insert changes the count, every update increases the sum of versions and every delete changes the count
+ * again. The last modification date catches the rare combination of an insert and a delete between two requests.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-11
+ */
+@AllArgsConstructor
+@Value
+public class CollectionStamp {
+    Long count;
+    Long versions;
+    OffsetDateTime lastModified;
+
+
+    /**
+     * @return The weak entity tag for the current state of the collection.
+     */
+    public EntityTag toEntityTag() {
+        return new EntityTag(
+                count
+                        + "-" + (versions != null ? versions : 0L)
+                        + "-" + (lastModified != null ? lastModified.toInstant().toEpochMilli() : 0L),
+                true
+        );
+    }
+}
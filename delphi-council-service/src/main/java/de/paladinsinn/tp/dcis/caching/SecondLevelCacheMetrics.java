@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.caching;
+
+import de.paladinsinn.tp.dcis.model.jpa.Operation;
+import de.paladinsinn.tp.dcis.model.jpa.Operative;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * SecondLevelCacheMetrics -- Publishes the statistics of the hibernate second level cache via micrometer.
+ *
+ * <p>The metrics are only registered when the second level cache and the hibernate statistics are enabled (see
+ * {@code DC_SECOND_LEVEL_CACHE} in the application configuration).</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class SecondLevelCacheMetrics {
+    private static final List<Class<?>> CACHED_ENTITIES = List.of(Operation.class, Operative.class);
+    private static final String QUERY_CACHE = "query-results";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final MeterRegistry registry;
+
+
+    void register(@Observes final StartupEvent event) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        if (!statistics.isStatisticsEnabled()) {
+            log.info("Hibernate statistics are disabled. No metrics for the second level cache are published.");
+            return;
+        }
+
+        for (Class<?> entity : CACHED_ENTITIES) {
+            try {
+                register(entity.getSimpleName(), statistics.getDomainDataRegionStatistics(entity.getName()));
+            } catch (IllegalArgumentException e) {
+                log.info("Entity is not cached. No metrics published. entity={}", entity.getName());
+            }
+        }
+
+        FunctionCounter.builder("dcis.cache.requests", statistics, Statistics::getQueryCacheHitCount)
+                .tag("cache", QUERY_CACHE).tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("dcis.cache.requests", statistics, Statistics::getQueryCacheMissCount)
+                .tag("cache", QUERY_CACHE).tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("dcis.cache.puts", statistics, Statistics::getQueryCachePutCount)
+                .tag("cache", QUERY_CACHE)
+                .register(registry);
+        FunctionCounter.builder("dcis.cache.invalidations", statistics, Statistics::getUpdateTimestampsCachePutCount)
+                .tag("cache", QUERY_CACHE)
+                .description("Writes to cached tables invalidating the cached query results.")
+                .register(registry);
+
+        log.info("Registered metrics for the second level cache. entities={}", CACHED_ENTITIES);
+    }
+
+    private void register(final String cache, final CacheRegionStatistics region) {
+        FunctionCounter.builder("dcis.cache.requests", region, CacheRegionStatistics::getHitCount)
+                .tag("cache", cache).tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("dcis.cache.requests", region, CacheRegionStatistics::getMissCount)
+                .tag("cache", cache).tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("dcis.cache.puts", region, CacheRegionStatistics::getPutCount)
+                .tag("cache", cache)
+                .register(registry);
+        Gauge.builder("dcis.cache.size", region, CacheRegionStatistics::getElementCountInMemory)
+                .tag("cache", cache)
+                .register(registry);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.caching;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import javax.ws.rs.core.EntityTag;
+import java.time.OffsetDateTime;
+
+/**
+ * VersionStamp -- The version information of a single entity used as HTTP validator.
+ *
+ * <p>It is loaded with a projection so the validator can be checked without loading the entity itself.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-11
+ */
+@AllArgsConstructor
+@Value
+public class VersionStamp {
+    Integer version;
+    OffsetDateTime modified;
+
+
+    /**
+     * @return The strong entity tag for this version of the entity.
+     */
+    public EntityTag toEntityTag() {
+        return new EntityTag(version + "-" + (modified != null ? modified.toInstant().toEpochMilli() : 0L));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.changes;
+
+import de.paladinsinn.tp.dcis.model.changes.ChangeSet;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.inject.Inject;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ChangeBroadcaster -- Pushes the committed changes to the subscribers of the change stream.
+ *
+ * <p>Once per tick the {@link ChangeFeed} is read a single time for all subscribers and the changes are sent as one
+ * {@link ChangeSet}. The feed only contains committed revisions, and since it is read from the database, every
+ * instance of the service also publishes the changes written by the other instances. Without subscribers the feed is
+ * not read.</p>
+ *
+ * <p>Ticks without changes send nothing. The next change set then starts at the end of the last one sent, so the
+ * stream stays continuous and the clients don't fall back to a full sync after a quiet period.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class ChangeBroadcaster {
+    private final ChangeFeed feed;
+
+    private final BroadcastProcessor<ChangeSet> processor = BroadcastProcessor.create();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private long mark = -1L;
+    /** The end of the last change set sent. */
+    private long sent = -1L;
+
+
+    /**
+     * @return The stream of change sets. Every change set starts at the end of the former one.
+     */
+    public Multi<ChangeSet> stream() {
+        return processor
+                .onSubscription().invoke(() -> log.debug("Change stream subscribed. subscribers={}",
+                        subscribers.incrementAndGet()))
+                .onTermination().invoke(() -> log.debug("Change stream ended. subscribers={}",
+                        subscribers.decrementAndGet()));
+    }
+
+    @Scheduled(
+            identity = "change-broadcaster",
+            every = "{dcis.changes.tick}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP
+    )
+    @ActivateRequestContext
+    synchronized void tick() {
+        if (subscribers.get() <= 0) {
+            // start again at the current revision when the next subscriber comes.
+            mark = -1L;
+            sent = -1L;
+            return;
+        }
+
+        ChangeSet changes;
+        do {
+            changes = feed.changes(mark, ChangeFeed.TABLES.keySet());
+            if (sent < 0) {
+                // first read only returns the current high-water mark.
+                sent = changes.getUntil();
+            } else if (!changes.getChanges().isEmpty()) {
+                // the skipped change sets contained nothing, so this one covers them.
+                processor.onNext(changes.toBuilder().since(sent).build());
+                sent = changes.getUntil();
+            }
+
+            mark = changes.getUntil();
+        } while (changes.isMore());
+    }
+}
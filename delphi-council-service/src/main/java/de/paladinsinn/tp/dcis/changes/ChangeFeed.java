@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.changes;
+
+import de.paladinsinn.tp.dcis.model.changes.ChangeSet;
+import de.paladinsinn.tp.dcis.model.changes.ChangedEntity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * ChangeFeed -- Reads the entities changed between two revisions from the Envers audit tables.
+ *
+ * <p>Every type costs one range read of the commit order joined with its audit table by the REV index (the
+ * engagements a second one for their operatives, the operatives a second one for their ledger bookings), so the cost
+ * depends on the number of changes and not on the size of the tables.</p>
+ *
+ * <p>The high-water marks and the revisions of the changes are positions in the commit order (see
+ * {@link CommitOrder}), not revision numbers: a big transaction may commit long after a younger revision, its
+ * position is drawn right before its commit. The high-water mark only covers positions older than the settle time,
+ * which only has to cover the commit itself.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class ChangeFeed {
+    /** The audit tables by type. */
+    static final Map<String, String> TABLES = Map.of(
+            ChangedEntity.DISPATCH, "DISPATCHES_AUD",
+            ChangedEntity.ENGAGEMENT, "DISPATCHREPORTS_AUD",
+            ChangedEntity.OPERATIVE, "OPERATIVES_AUD"
+    );
+
+    /** Maximum number of positions covered by one change set. */
+    private static final long MAX_POSITIONS = 1000L;
+
+    /** The Envers revision type of deletions. */
+    private static final int DELETED = 2;
+
+    private static final String SETTLED = "SELECT SEQ FROM REVCOMMITS WHERE COMMITTED <= ?1 ORDER BY SEQ DESC";
+    private static final String CHANGES = "SELECT a.ID, c.SEQ, a.REVTYPE FROM REVCOMMITS c JOIN %s a ON a.REV = c.REV "
+            + "WHERE c.SEQ > ?1 AND c.SEQ <= ?2 ORDER BY c.SEQ";
+    private static final String ENGAGEMENT_OPERATIVES = "SELECT a.DISPATCHREPORT_ID, c.SEQ FROM REVCOMMITS c "
+            + "JOIN DISPATCHREPORTS_OPERATIVES_AUD a ON a.REV = c.REV "
+            + "WHERE c.SEQ > ?1 AND c.SEQ <= ?2 AND a.DISPATCHREPORT_ID IS NOT NULL ORDER BY c.SEQ";
+    private static final String OPERATIVE_BOOKINGS = "SELECT a.OPERATIVE_ID, c.SEQ FROM REVCOMMITS c "
+            + "JOIN OPERATIVE_LEDGER_AUD a ON a.REV = c.REV WHERE c.SEQ > ?1 AND c.SEQ <= ?2 ORDER BY c.SEQ";
+
+    private final EntityManager entityManager;
+
+    @ConfigProperty(name = "dcis.changes.settle", defaultValue = "PT2S")
+    Duration settle;
+
+
+    /**
+     * Reads the changes after the given revision.
+     *
+     * @param since The high-water mark of the client. A negative value only returns the current high-water mark.
+     * @param types The types to read (see {@link #TABLES}).
+     * @return The changed entities, every entity once with its last change.
+     */
+    public ChangeSet changes(final long since, final Collection<String> types) {
+        long settled = settledPosition();
+        if (since < 0 || settled <= since) {
+            return ChangeSet.builder()
+                    .since(since)
+                    .until(Math.max(since, settled))
+                    .build();
+        }
+
+        long until = Math.min(settled, since + MAX_POSITIONS);
+        Map<String, ChangedEntity> changes = new LinkedHashMap<>();
+
+        for (String type : types) {
+            read(String.format(CHANGES, TABLES.get(type)), since, until)
+                    .forEach(row -> add(changes, type, row[0], row[1], ((Number) row[2]).intValue() == DELETED));
+
+            if (ChangedEntity.ENGAGEMENT.equals(type)) {
+                // a changed list of operatives changes the engagement.
+                read(ENGAGEMENT_OPERATIVES, since, until)
+                        .forEach(row -> add(changes, type, row[0], row[1], false));
+            }
+            if (ChangedEntity.OPERATIVE.equals(type)) {
+                // a booking changes the xp, money and clearance of the operative.
+                read(OPERATIVE_BOOKINGS, since, until)
+                        .forEach(row -> add(changes, type, row[0], row[1], false));
+            }
+        }
+
+        ChangeSet result = ChangeSet.builder()
+                .since(since)
+                .until(until)
+                .more(settled > until)
+                .changes(changes.values().stream()
+                        .sorted(Comparator.comparingLong(ChangedEntity::getRevision))
+                        .toList())
+                .build();
+
+        log.debug("changes read. since={}, until={}, more={}, types={}, count={}",
+                since, until, result.isMore(), types, result.getChanges().size());
+        return result;
+    }
+
+
+    private long settledPosition() {
+        List<?> result = entityManager.createNativeQuery(SETTLED)
+                .setParameter(1, Instant.now().minus(settle).toEpochMilli())
+                .setMaxResults(1)
+                .getResultList();
+
+        return result.isEmpty() ? 0L : ((Number) result.get(0)).longValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> read(final String sql, final long since, final long until) {
+        return entityManager.createNativeQuery(sql)
+                .setParameter(1, since)
+                .setParameter(2, until)
+                .getResultList();
+    }
+
+    private void add(
+            final Map<String, ChangedEntity> changes,
+            final String type,
+            final Object id,
+            final Object revision,
+            final boolean deleted
+    ) {
+        UUID uuid = toUuid(id);
+        long rev = ((Number) revision).longValue();
+
+        // the rows are read in commit order, so the last row of an entity wins. On the same position the
+        // entity row (read first) wins over the operatives or bookings row.
+        changes.merge(type + "/" + uuid,
+                ChangedEntity.builder().type(type).id(uuid).revision(rev).deleted(deleted).build(),
+                (old, current) -> current.getRevision() > old.getRevision() ? current : old);
+    }
+
+    private UUID toUuid(final Object id) {
+        if (id instanceof UUID uuid) {
+            return uuid;
+        }
+        if (id instanceof byte[] raw) {
+            ByteBuffer buffer = ByteBuffer.wrap(raw);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        }
+
+        return UUID.fromString(id.toString());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.changes;
+
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.model.changes.ChangeSet;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Multi;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+
+import javax.annotation.security.PermitAll;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Schema(
+        name = "Changes",
+        description = "Feed of the changed entities"
+)
+@ApplicationScoped
+@Path("/api/v1/changes")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@PermitAll
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class ChangeResource {
+    private static final String ALL_TYPES = "dispatch,engagement,operative";
+
+    private final ChangeFeed feed;
+
+    private final ChangeBroadcaster broadcaster;
+
+    private final HttpErrorGenerator errorGenerator;
+
+
+    @Schema(
+            title = "Retrieve the changed entities",
+            description = "Retrieves the IDs of the entities changed after the given revision and the new high-water "
+                    + "mark to send as 'since' with the next request. Without 'since' only the current high-water "
+                    + "mark is returned."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the changes."),
+            @APIResponse(responseCode = "400", description = "A requested type is not supported."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in.")
+    })
+    @GET
+    @RunOnVirtualThread
+    public ChangeSet changes(
+            @Schema(description = "The high-water mark of the last request.", nullable = true)
+            @QueryParam("since")
+            @DefaultValue("-1")
+            final long since,
+
+            @Schema(description = "Comma separated types: dispatch, engagement, operative.", nullable = true)
+            @QueryParam("types")
+            @DefaultValue(ALL_TYPES)
+            final String types
+    ) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String type : Arrays.stream(types.split(",")).map(String::trim).filter(t -> !t.isEmpty()).toList()) {
+            if (!ChangeFeed.TABLES.containsKey(type)) {
+                throw errorGenerator.throwHttpProblem(
+                        Response.Status.BAD_REQUEST,
+                        "The type is not supported.",
+                        Map.of("type", type, "supported", ALL_TYPES)
+                );
+            }
+
+            requested.add(type);
+        }
+
+        return feed.changes(since, requested);
+    }
+
+    @Schema(
+            title = "Subscribe to the changed entities",
+            description = "Streams the changes as server-sent events. The changes are sent after commit, batched per "
+                    + "tick. Every event starts at the high-water mark of the former one. After a reconnect the "
+                    + "client catches up with the change feed."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Streams the changes."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in.")
+    })
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<ChangeSet> stream() {
+        return broadcaster.stream();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.changes;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.hibernate.envers.RevisionListener;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * CommitOrder -- Records the revisions in the order their transactions commit.
+ *
+ * <p>Envers draws the revision number when the transaction starts to complete, the audit rows are written afterwards.
+ * A big transaction may therefore commit long after a younger revision. For every revision a row of REVCOMMITS is
+ * written as the last statement before the commit, its position is drawn from the same sequence as the revision
+ * numbers. The positions follow the commit order up to the time of the commit itself, so the {@link ChangeFeed} only
+ * has to wait for commits in flight, not for transactions in flight.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class CommitOrder {
+    /** The position (SEQ) is drawn by the column default from hibernate_sequence. */
+    private static final String INSERT = "INSERT INTO REVCOMMITS (REV, COMMITTED) VALUES (?, ?)";
+
+    private final TransactionSynchronizationRegistry transactions;
+
+    private final DataSource dataSource;
+
+
+    /**
+     * The Envers listener of the {@link de.paladinsinn.tp.dcis.model.jpa.Revision}. Envers creates the listener
+     * itself, so it hands the revision to the bean.
+     */
+    @RegisterForReflection
+    public static class Listener implements RevisionListener {
+        @Override
+        public void newRevision(final Object revision) {
+            Arc.container().instance(CommitOrder.class).get().register((DefaultRevisionEntity) revision);
+        }
+    }
+
+
+    /**
+     * Writes the position of the revision right before the transaction commits. The revision number is only known
+     * after Envers stored the revision, so it is read from the entity then.
+     *
+     * @param revision The new revision of the current transaction.
+     */
+    void register(final DefaultRevisionEntity revision) {
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+                write(revision.getId());
+            }
+
+            @Override
+            public void afterCompletion(final int status) {}
+        });
+    }
+
+
+    private void write(final int revision) {
+        // the connection of the current transaction, the row is committed (or rolled back) with the revision.
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            statement.setInt(1, revision);
+            statement.setLong(2, System.currentTimeMillis());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            // without the row the revision would never be reported, so the transaction has to fail.
+            throw new IllegalStateException("Could not record the commit order of the revision. revision="
+                    + revision, e);
+        }
+
+        log.trace("Recorded commit order. revision={}", revision);
+    }
+}
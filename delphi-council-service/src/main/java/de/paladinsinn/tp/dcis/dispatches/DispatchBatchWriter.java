@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.dispatches;
+
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.engagements.DispatchOutcomes;
+import de.paladinsinn.tp.dcis.model.batch.BatchItemResult;
+import de.paladinsinn.tp.dcis.model.batch.BatchResult;
+import de.paladinsinn.tp.dcis.model.jpa.Operation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * DispatchBatchWriter -- Creates and updates many dispatches within a single transaction.
+ *
+ * <p>All existing dispatches of the batch are loaded with one query. The inserts and the updates are then flushed
+ * in groups of {@link #BATCH_SIZE}, so the JDBC driver sends them as statement batches instead of one round trip
+ * per row. The outcome counters of the new dispatches are sent after all dispatches, so the statements are ordered
+ * by table. Elements failing the validation, the version check or the unique keys (ID within the batch, CODE and
+ * TITLE) are reported and skipped, the rest of the batch is stored.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-18
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class DispatchBatchWriter {
+    /** Number of statements sent to the database as one JDBC batch. Matches the configured statement-batch-size. */
+    static final int BATCH_SIZE = 50;
+
+    /** Maximum number of elements accepted within one request. */
+    private static final int MAX_ITEMS = 1000;
+
+    private final EntityManager entityManager;
+
+    private final HttpErrorGenerator errorGenerator;
+
+    private final DispatchOutcomes outcomes;
+
+
+    /**
+     * Stores the dispatches. Elements without ID or with an unknown ID are created, elements with a known ID are
+     * updated if they carry the stored version.
+     *
+     * @param items The dispatches to store.
+     * @return The results per element in request order.
+     */
+    @Transactional
+    public BatchResult write(final List<Operation> items) {
+        if (items == null || items.isEmpty() || items.size() > MAX_ITEMS) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The batch has to contain between 1 and " + MAX_ITEMS + " dispatches.",
+                    Map.of("size", Integer.toString(items != null ? items.size() : 0))
+            );
+        }
+
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(BATCH_SIZE);
+
+        Map<UUID, Operation> existing = loadExisting(items);
+        Map<String, UUID> codes = new HashMap<>();
+        Map<String, UUID> titles = new HashMap<>();
+        loadUniqueKeys(items, codes, titles);
+
+        BatchItemResult[] results = new BatchItemResult[items.size()];
+        UUID[] ids = new UUID[items.size()];
+        Set<UUID> seen = new HashSet<>(items.size());
+        List<Integer> inserts = new ArrayList<>(items.size());
+        List<Integer> updates = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            Operation item = items.get(i);
+            String invalid = validate(item);
+
+            if (invalid != null) {
+                results[i] = result(i, item != null ? item.getId() : null, BatchItemResult.Status.INVALID, invalid);
+                continue;
+            }
+
+            ids[i] = item.getId() != null ? item.getId() : UUID.randomUUID();
+            Operation stored = existing.get(ids[i]);
+
+            if (!seen.add(ids[i])) {
+                results[i] = result(i, ids[i], BatchItemResult.Status.INVALID,
+                        "The dispatch is contained more than once in the batch.");
+            } else if (stored != null && item.getVersion() == null) {
+                results[i] = result(i, ids[i], BatchItemResult.Status.INVALID,
+                        "The version of the dispatch is required for an update.");
+            } else if (stored != null && !Objects.equals(item.getVersion(), stored.getVersion())) {
+                results[i] = result(i, ids[i], BatchItemResult.Status.CONFLICT,
+                        "The dispatch has been changed. stored version=" + stored.getVersion());
+            } else if (!isFree(codes, item.getCode(), ids[i])) {
+                results[i] = result(i, ids[i], BatchItemResult.Status.CONFLICT,
+                        "The code is already used by dispatch " + codes.get(uniqueKey(item.getCode())) + ".");
+            } else if (!isFree(titles, item.getName(), ids[i])) {
+                results[i] = result(i, ids[i], BatchItemResult.Status.CONFLICT,
+                        "The title is already used by dispatch " + titles.get(uniqueKey(item.getName())) + ".");
+            } else {
+                codes.put(uniqueKey(item.getCode()), ids[i]);
+                titles.put(uniqueKey(item.getName()), ids[i]);
+
+                (stored == null ? inserts : updates).add(i);
+            }
+        }
+
+        int count = 0;
+        for (int i : inserts) {
+            Operation item = items.get(i).toBuilder()
+                    .id(ids[i])
+                    .version(null)
+                    .build();
+
+            entityManager.persist(item);
+            results[i] = result(i, item.getId(), BatchItemResult.Status.CREATED, null);
+
+            flushBatch(++count);
+        }
+        entityManager.flush();
+
+        // the outcome counters of the new dispatches are sent after the dispatches, so they are batched by table, too.
+        count = 0;
+        for (int i : inserts) {
+            outcomes.prepare(ids[i]);
+
+            flushBatch(++count);
+        }
+        entityManager.flush();
+
+        count = 0;
+        for (int i : updates) {
+            Operation stored = existing.get(items.get(i).getId());
+            Operation item = items.get(i).toBuilder()
+                    .version(stored.getVersion())
+                    .created(stored.getCreated())
+                    .build();
+
+            entityManager.merge(item);
+            results[i] = result(i, item.getId(), BatchItemResult.Status.UPDATED, null);
+
+            flushBatch(++count);
+        }
+        entityManager.flush();
+
+        BatchResult result = BatchResult.builder()
+                .created(inserts.size())
+                .updated(updates.size())
+                .rejected(items.size() - inserts.size() - updates.size())
+                .results(List.of(results))
+                .build();
+        log.info("Stored dispatch batch. size={}, created={}, updated={}, rejected={}",
+                items.size(), result.getCreated(), result.getUpdated(), result.getRejected());
+        return result;
+    }
+
+    private Map<UUID, Operation> loadExisting(final List<Operation> items) {
+        List<UUID> ids = items.stream()
+                .filter(Objects::nonNull)
+                .map(Operation::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        Map<UUID, Operation> result = new HashMap<>(ids.size());
+        if (ids.isEmpty()) {
+            return result;
+        }
+
+        entityManager.createQuery("SELECT o FROM Operation o WHERE o.id IN :ids", Operation.class)
+                .setParameter("ids", ids)
+                .getResultStream()
+                .forEach(o -> result.put(o.getId(), o));
+        return result;
+    }
+
+    /**
+     * Loads the owners of the codes and titles used within the batch, so a violation of the unique keys is reported
+     * for the single element instead of failing the whole batch at the flush.
+     */
+    private void loadUniqueKeys(final List<Operation> items, final Map<String, UUID> codes,
+                                final Map<String, UUID> titles) {
+        List<String> usedCodes = items.stream()
+                .filter(item -> validate(item) == null)
+                .map(Operation::getCode)
+                .distinct()
+                .toList();
+        List<String> usedTitles = items.stream()
+                .filter(item -> validate(item) == null)
+                .map(Operation::getName)
+                .distinct()
+                .toList();
+
+        if (usedCodes.isEmpty()) {
+            return;
+        }
+
+        entityManager.createQuery(
+                        "SELECT o.id, o.code, o.name FROM Operation o WHERE o.code IN :codes OR o.name IN :titles",
+                        Object[].class
+                )
+                .setParameter("codes", usedCodes)
+                .setParameter("titles", usedTitles)
+                .getResultStream()
+                .forEach(row -> {
+                    codes.put(uniqueKey((String) row[1]), (UUID) row[0]);
+                    titles.put(uniqueKey((String) row[2]), (UUID) row[0]);
+                });
+    }
+
+    private boolean isFree(final Map<String, UUID> owners, final String value, final UUID id) {
+        UUID owner = owners.get(uniqueKey(value));
+
+        return owner == null || owner.equals(id);
+    }
+
+    /**
+     * The unique keys are compared like the database does (case insensitive, trailing spaces ignored).
+     */
+    private String uniqueKey(final String value) {
+        return value.stripTrailing().toLowerCase(Locale.ROOT);
+    }
+
+    private String validate(final Operation item) {
+        if (item == null) {
+            return "The dispatch is missing.";
+        }
+        if (item.getCode() == null || item.getCode().isBlank()) {
+            return "The code of the dispatch is missing.";
+        }
+        if (item.getName() == null || item.getName().isBlank()) {
+            return "The title of the dispatch is missing.";
+        }
+        if (item.getDescription() == null) {
+            return "The description of the dispatch is missing.";
+        }
+        if (item.getLanguage() == null || item.getClearance() == null) {
+            return "The language and the clearance of the dispatch are required.";
+        }
+
+        return null;
+    }
+
+    /**
+     * Sends the pending statements as one JDBC batch every {@link #BATCH_SIZE} elements. The persistence context is
+     * not cleared since the entities loaded for the version check are still needed.
+     */
+    private void flushBatch(final int count) {
+        if (count % BATCH_SIZE == 0) {
+            entityManager.flush();
+        }
+    }
+
+    private BatchItemResult result(final int index, final UUID id, final BatchItemResult.Status status,
+                                   final String message) {
+        return BatchItemResult.builder()
+                .index(index)
+                .id(id)
+                .status(status)
+                .message(message)
+                .build();
+    }
+}
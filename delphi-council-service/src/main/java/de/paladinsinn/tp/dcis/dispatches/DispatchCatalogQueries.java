@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.dispatches;
+
+import de.paladinsinn.tp.dcis.caching.CollectionStamp;
+import de.paladinsinn.tp.dcis.caching.VersionStamp;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * DispatchCatalogQueries -- The read queries of the dispatch catalog.
+ *
+ * <p>The queries are marked as cacheable. With the second level cache enabled the results are served from the query
+ * cache until the next write to the DISPATCHES table.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+public interface DispatchCatalogQueries {
+    /**
+     * @param id the id of the dispatch.
+     * @return the version information of the dispatch without loading it.
+     */
+    Optional<VersionStamp> findVersionStamp(UUID id);
+
+    /**
+     * @return the aggregated version information of all dispatches.
+     */
+    CollectionStamp findCollectionStamp();
+
+    /**
+     * @return all dispatches as list entries.
+     */
+    List<BasicData> findAllBasicData();
+
+    /**
+     * Retrieves a page of dispatches as list entries (offset paging).
+     *
+     * @param page the page to retrieve.
+     * @return the page of list entries.
+     */
+    Page<BasicData> findAllBasicData(Pageable page);
+
+    /**
+     * Retrieves the first page of dispatches ordered by (CODE, ID).
+     *
+     * @param page only the size of the page is used.
+     * @return the first dispatches in keyset order.
+     */
+    List<BasicData> findFirstKeysetPage(Pageable page);
+
+    /**
+     * Retrieves the page of dispatches following the given keyset position ordered by (CODE, ID).
+     *
+     * @param code the code of the last element of the previous page.
+     * @param id the id of the last element of the previous page.
+     * @param page only the size of the page is used.
+     * @return the dispatches following the given position in keyset order.
+     */
+    List<BasicData> findKeysetPageAfter(String code, UUID id, Pageable page);
+}
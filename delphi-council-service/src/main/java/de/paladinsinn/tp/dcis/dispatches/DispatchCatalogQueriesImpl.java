@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.dispatches;
+
+import de.paladinsinn.tp.dcis.caching.CollectionStamp;
+import de.paladinsinn.tp.dcis.caching.VersionStamp;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * DispatchCatalogQueriesImpl -- Implementation of the cacheable dispatch catalog queries.
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+public class DispatchCatalogQueriesImpl implements DispatchCatalogQueries {
+    /**
+     * Selects only the columns needed for {@link BasicData}. The large DESCRIPTION is the only text column read, the
+     * OBJECTIVES_* columns stay in the database.
+     */
+    private static final String SELECT_BASIC_DATA = "SELECT new de.paladinsinn.tp.dcis.model.lists.BasicData("
+            + "o.id, o.created, o.modified, o.code, o.name, o.description, o.image"
+            + ") FROM Operation o";
+    private static final String ORDER_BY_KEYSET = " ORDER BY o.code, o.id";
+
+    private final EntityManager entityManager;
+
+
+    @Override
+    public Optional<VersionStamp> findVersionStamp(final UUID id) {
+        return query(
+                "SELECT new de.paladinsinn.tp.dcis.caching.VersionStamp(o.version, o.modified) FROM Operation o WHERE o.id = :id",
+                VersionStamp.class
+        )
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public CollectionStamp findCollectionStamp() {
+        return query(
+                "SELECT new de.paladinsinn.tp.dcis.caching.CollectionStamp(count(o), sum(o.version), max(o.modified)) FROM Operation o",
+                CollectionStamp.class
+        )
+                .getSingleResult();
+    }
+
+    @Override
+    public List<BasicData> findAllBasicData() {
+        return query(SELECT_BASIC_DATA + ORDER_BY_KEYSET, BasicData.class)
+                .getResultList();
+    }
+
+    @Override
+    public Page<BasicData> findAllBasicData(final Pageable page) {
+        List<BasicData> data = query(SELECT_BASIC_DATA + ORDER_BY_KEYSET, BasicData.class)
+                .setFirstResult((int) page.getOffset())
+                .setMaxResults(page.getPageSize())
+                .getResultList();
+
+        return new PageImpl<>(data, page, findCollectionStamp().getCount());
+    }
+
+    @Override
+    public List<BasicData> findFirstKeysetPage(final Pageable page) {
+        return query(SELECT_BASIC_DATA + ORDER_BY_KEYSET, BasicData.class)
+                .setMaxResults(page.getPageSize())
+                .getResultList();
+    }
+
+    @Override
+    public List<BasicData> findKeysetPageAfter(final String code, final UUID id, final Pageable page) {
+        return query(
+                SELECT_BASIC_DATA + " WHERE o.code >= :code AND (o.code > :code OR o.id > :id)" + ORDER_BY_KEYSET,
+                BasicData.class
+        )
+                .setParameter("code", code)
+                .setParameter("id", id)
+                .setMaxResults(page.getPageSize())
+                .getResultList();
+    }
+
+
+    private <T> TypedQuery<T> query(final String query, final Class<T> type) {
+        return entityManager.createQuery(query, type)
+                .setHint(QueryHints.CACHEABLE, true);
+    }
+}
@@ -15,5 +15,5 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.UUID;
 
-public interface DispatchRepository extends JpaRepository<Operation, UUID> {
+public interface DispatchRepository extends JpaRepository<Operation, UUID>, DispatchCatalogQueries {
 }
@@ -12,9 +12,16 @@ package de.paladinsinn.tp.dcis.dispatches;
 
 import de.kaiserpfalzedv.commons.core.api.Paging;
 import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.caching.VersionStamp;
+import de.paladinsinn.tp.dcis.export.EntityExporter;
+import de.paladinsinn.tp.dcis.export.ExportDefinition;
+import de.paladinsinn.tp.dcis.model.batch.BatchResult;
 import de.paladinsinn.tp.dcis.model.jpa.Operation;
 import de.paladinsinn.tp.dcis.model.lists.BasicData;
 import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import de.paladinsinn.tp.dcis.paging.IdSelection;
+import de.paladinsinn.tp.dcis.paging.KeysetCursor;
+import io.quarkus.arc.properties.UnlessBuildProperty;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -27,18 +34,23 @@ import javax.annotation.security.PermitAll;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Schema(
         name = "Dispatches",
         description = "Dispatch Management Service"
 )
+@UnlessBuildProperty(name = "dcis.reactive", stringValue = "true", enableIfMissing = true)
+@UnlessBuildProperty(name = "dcis.virtual-threads", stringValue = "true", enableIfMissing = true)
 @ApplicationScoped
 @Path("/api/v1/dispatches")
 @Consumes(MediaType.APPLICATION_JSON)
@@ -50,20 +62,49 @@ public class DispatchResource {
     private static final int DEFAULT_INT_PARAM = -1;
     private static final String DEFAULT_INT_PARAM_STRING = "-1";
 
+    static final ExportDefinition<Operation> EXPORT = ExportDefinition.<Operation>builder()
+            .name("dispatches")
+            .type(Operation.class)
+            .query("SELECT o FROM Operation o ORDER BY o.code, o.id")
+            .column("ID", Operation::getId)
+            .column("VERSION", Operation::getVersion)
+            .column("LANGUAGE", Operation::getLanguage)
+            .column("CODE", Operation::getCode)
+            .column("TITLE", Operation::getName)
+            .column("CLEARANCE", Operation::getClearance)
+            .column("DESCRIPTION", Operation::getDescription)
+            .column("XP", Operation::getXp)
+            .column("PAYMENT", Operation::getPayment)
+            .column("OBJECTIVES_SUCCESS", Operation::getObjectivesSuccess)
+            .column("OBJECTIVES_GOOD", Operation::getObjectivesGood)
+            .column("OBJECTIVES_OUTSTANDING", Operation::getObjectivesOutstanding)
+            .column("IMAGE", Operation::getImage)
+            .column("PUBLICATION", Operation::getPublication)
+            .build();
+
     private final DispatchRepository repository;
 
     private final HttpErrorGenerator errorGenerator;
 
+    private final EntityExporter exporter;
+
+    private final DispatchBatchWriter batchWriter;
+
+    private final DispatchSearchIndex searchIndex;
+
     @Schema(
             title = "Retrieve all missions",
-            description = "Retrieves all missions (or a subpage if requested)."
+            description = "Retrieves all missions (or a subpage if requested). With 'id' the dispatches with these IDs "
+                    + "are returned instead."
     )
     @APIResponses({
             @APIResponse(responseCode = "200", description = "Returns a list of missions"),
+            @APIResponse(responseCode = "304", description = "The list did not change since the given ETag."),
+            @APIResponse(responseCode = "400", description = "Invalid paging parameters or too many IDs requested."),
             @APIResponse(responseCode = "403", description = "Not logged in. Please log in")
     })
     @GET
-    public BasicList index(
+    public Response index(
             @Schema(description = "Start index of the list in total set of missions.",
                     nullable = true)
             @QueryParam("start")
@@ -73,41 +114,143 @@ public class DispatchResource {
             @Schema(description = "Size of page to request.", nullable = true)
             @QueryParam("size")
             @DefaultValue(DEFAULT_INT_PARAM_STRING)
-            int size
+            int size,
+
+            @Schema(description = "Opaque cursor of the previous page (as delivered in 'next'). Only used without 'start'.",
+                    nullable = true)
+            @QueryParam("cursor")
+            String cursor,
+
+            @Schema(description = "IDs of the dispatches to retrieve (repeatable, at most 100).", nullable = true)
+            @QueryParam("id")
+            List<UUID> ids,
+
+            @Context
+            Request request
     ) {
+        if (ids != null && !ids.isEmpty()) {
+            return Response.ok(index(IdSelection.of(ids, errorGenerator))).build();
+        }
+
+        EntityTag tag = repository.findCollectionStamp().toEntityTag();
+
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            log.debug("missions not modified. etag={}", tag);
+            return notModified.tag(tag).build();
+        }
+
+        return Response.ok(index(start, size, cursor)).tag(tag).build();
+    }
+
+    private List<Operation> index(final Set<UUID> ids) {
+        List<Operation> result = IdSelection.inRequestOrder(ids, repository.findAllById(ids), Operation::getId);
+
+        log.debug("dispatches loaded by id. requested={}, found={}", ids.size(), result.size());
+        return result;
+    }
+
+    private BasicList index(final int start, final int size, final String cursor) {
         if (start == DEFAULT_INT_PARAM && size == DEFAULT_INT_PARAM) {
             return index();
         }
 
-        Page<Operation> raw = repository.findAll(PageRequest.of(start * size, size));
-        log.info("Retrieved list of missions. total={}, count={}", raw.getTotalElements(), raw.getNumber());
+        if (start == DEFAULT_INT_PARAM) {
+            return index(cursor, size);
+        }
+
+        checkPageSize(size);
+        if (start < 0 || start % size != 0) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The start index must not be negative and has to be a multiple of the page size.",
+                    Map.of("start", Integer.toString(start), "size", Integer.toString(size))
+            );
+        }
+
+        Page<BasicData> raw = repository.findAllBasicData(PageRequest.of(start / size, size));
+        log.info("Retrieved list of missions. total={}, count={}", raw.getTotalElements(), raw.getNumberOfElements());
 
         log.debug("missions loaded. count={}, total={}, data.size={}",
-                raw.getNumber(), raw.getTotalElements(), raw.getSize());
+                raw.getNumberOfElements(), raw.getTotalElements(), raw.getSize());
 
 
         return BasicList.builder()
                 .kind("mission")
                 .page(Paging.builder()
                         .start(start)
-                        .count(raw.getNumber())
+                        .count(raw.getNumberOfElements())
                         .size(size)
                         .total(raw.getTotalElements())
                         .build())
-                .data(raw.get().map(this::mapMission).collect(Collectors.toList()))
+                .data(raw.getContent())
                 .build();
     }
 
+    /**
+     * Keyset paging over (CODE, ID). The page latency does not depend on the position within the list since the
+     * database seeks directly to the last delivered element instead of skipping all elements before.
+     *
+     * @param cursor The cursor of the previous page or null for the first page.
+     * @param size The size of the page.
+     * @return The page following the cursor.
+     */
+    private BasicList index(final String cursor, final int size) {
+        checkPageSize(size);
 
-    private BasicList index() {
-        Iterator<Operation> raw = repository.findAll().iterator();
+        List<BasicData> raw;
+        if (cursor == null || cursor.isBlank()) {
+            raw = repository.findFirstKeysetPage(PageRequest.of(0, size));
+        } else {
+            KeysetCursor position = decodeCursor(cursor);
+            raw = repository.findKeysetPageAfter(position.getKey(), position.getId(), PageRequest.of(0, size));
+        }
+
+        String next = null;
+        if (raw.size() == size) {
+            BasicData last = raw.get(raw.size() - 1);
+            next = KeysetCursor.builder().key(last.getCode()).id(last.getId()).build().encode();
+        }
+
+        log.debug("missions loaded. cursor={}, count={}, next={}", cursor, raw.size(), next);
+
+        return BasicList.builder()
+                .kind("mission")
+                .page(Paging.builder()
+                        .count(raw.size())
+                        .size(size)
+                        .build())
+                .next(next)
+                .data(raw)
+                .build();
+    }
+
+    private void checkPageSize(final int size) {
+        if (size <= 0) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The page size has to be positive.",
+                    Map.of("size", Integer.toString(size))
+            );
+        }
+    }
 
-        ArrayList<BasicData> data = new ArrayList<>();
-        while (raw.hasNext()) {
-            data.add(mapMission(raw.next()));
+    private KeysetCursor decodeCursor(final String cursor) {
+        try {
+            return KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The cursor is invalid.",
+                    Map.of("cursor", cursor)
+            );
         }
+    }
 
 
+    private BasicList index() {
+        List<BasicData> data = repository.findAllBasicData();
+
         log.debug("missions loaded. count={}, total={}, data.size={}",
                 data.size(), data.size(), data.size());
 
@@ -122,21 +265,69 @@ public class DispatchResource {
                 .build();
     }
 
-    private BasicData mapMission(Operation orig) {
-        BasicData result = BasicData.builder()
-                .id(orig.getId())
-                .created(orig.getCreated())
-                .modified(orig.getModified())
+    @Schema(
+            title = "Search dispatches",
+            description = "Full text search over title, code, description and objectives of the dispatches. "
+                    + "All words have to match, the best matches are returned first."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the matching dispatches"),
+            @APIResponse(responseCode = "400", description = "The query is missing or invalid."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in")
+    })
+    @GET
+    @Path("/search")
+    public BasicList search(
+            @Schema(description = "The words to search for (Lucene query syntax).", required = true)
+            @QueryParam("q")
+            final String query,
 
-                .code(orig.getCode())
-                .name(orig.getName())
-                .description(orig.getDescription())
-                .url(orig.getImage())
+            @Schema(description = "Maximum number of results.", nullable = true)
+            @QueryParam("size")
+            @DefaultValue("20")
+            final int size
+    ) {
+        return searchIndex.search(query, size);
+    }
 
-                .build();
+    @Schema(
+            title = "Export all dispatches",
+            description = "Streams all dispatches as NDJSON (one JSON document per line) or CSV."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns all dispatches"),
+            @APIResponse(responseCode = "400", description = "The requested format is not supported."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in")
+    })
+    @GET
+    @Path("/export")
+    @Produces({"application/x-ndjson", "text/csv"})
+    public Response export(
+            @Schema(description = "Format of the export: 'ndjson' or 'csv'.", nullable = true)
+            @QueryParam("format")
+            @DefaultValue("ndjson")
+            String format
+    ) {
+        return exporter.export(EXPORT, format);
+    }
 
-        log.trace("Dataset converted. result={}", result);
-        return result;
+    @Schema(
+            title = "Create and update many dispatches",
+            description = "Stores all dispatches within one transaction. Dispatches without a known ID are created, the "
+                    + "others updated. The result lists the outcome of every dispatch in request order."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the result for every dispatch."),
+            @APIResponse(responseCode = "400", description = "The batch is empty or too large."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in.")
+    })
+    @POST
+    @Path("/batch")
+    public BatchResult batch(
+            @Schema(description = "The dispatches to create or update.", required = true)
+            final List<Operation> data
+    ) {
+        return batchWriter.write(data);
     }
 
     @Schema(
@@ -145,23 +336,51 @@ public class DispatchResource {
     )
     @APIResponses({
             @APIResponse(responseCode = "200", description = "Returns the requested dispatch."),
+            @APIResponse(responseCode = "304", description = "The dispatch did not change since the given ETag."),
             @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
             @APIResponse(responseCode = "404", description = "There is no dispatch with the given ID available."),
     })
     @GET
     @Path("/{id}")
-    public Operation index(
+    public Response index(
             @Schema(description = "ID of the dispatch to load.", nullable = false, required = true)
-            final UUID id
+            final UUID id,
+
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH)
+            String ifNoneMatch,
+
+            @Context
+            Request request
             ) {
-        return repository.findById(id).orElseThrow(() -> {
-            return errorGenerator.throwHttpProblem(
-                    Response.Status.NOT_FOUND,
-                    "There is no dispatch with this id.",
-                    Map.of(
-                            "id", id.toString()
-                    )
-            );
-        });
+        // only a revalidation is worth the extra query for the stamp, else the tag is taken from the loaded entity.
+        if (ifNoneMatch != null) {
+            EntityTag tag = repository.findVersionStamp(id).orElseThrow(() -> notFound(id)).toEntityTag();
+
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+            if (notModified != null) {
+                log.debug("dispatch not modified. id={}, etag={}", id, tag);
+                return notModified.tag(tag).build();
+            }
+        }
+
+        Operation data = repository.findById(id).orElseThrow(() -> notFound(id));
+        EntityTag tag = new VersionStamp(data.getVersion(), data.getModified()).toEntityTag();
+
+        Response.ResponseBuilder failed = request.evaluatePreconditions(tag);
+        if (failed != null) {
+            return failed.tag(tag).build();
+        }
+
+        return Response.ok(data).tag(tag).build();
+    }
+
+    private RuntimeException notFound(final UUID id) {
+        return errorGenerator.throwHttpProblem(
+                Response.Status.NOT_FOUND,
+                "There is no dispatch with this id.",
+                Map.of(
+                        "id", id.toString()
+                )
+        );
     }
 }
@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.dispatches;
+
+import de.kaiserpfalzedv.commons.core.api.Paging;
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.changes.ChangeFeed;
+import de.paladinsinn.tp.dcis.model.changes.ChangeSet;
+import de.paladinsinn.tp.dcis.model.changes.ChangedEntity;
+import de.paladinsinn.tp.dcis.model.jpa.Operation;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * DispatchSearchIndex -- Full text index over the dispatch catalog.
+ *
+ * <p>The index is a Lucene index on local disk. It contains the title, code, description and objectives of every
+ * dispatch and stores the list data, so a search is answered from the index without touching the database.</p>
+ *
+ * <p>The writes of this instance are added by the {@link DispatchSearchListener} after the commit and are visible to
+ * the next search. The writes of all instances are read from the {@link ChangeFeed} every sync interval, so the
+ * index of every instance also contains the dispatches written by the other instances. The index is committed to
+ * disk once per sync together with the revision read up to, and continues from there after a restart. Without a
+ * committed revision the index is rebuilt from the database.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-25
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class DispatchSearchIndex {
+    static final String ID = "id";
+    static final String CODE = "code";
+    static final String TITLE = "title";
+    static final String DESCRIPTION = "description";
+    static final String OBJECTIVES = "objectives";
+    static final String IMAGE = "image";
+    static final String CREATED = "created";
+    static final String MODIFIED = "modified";
+
+    /** Matches in the code or the title rank before matches in the long texts. */
+    private static final Map<String, Float> BOOSTS = Map.of(
+            CODE, 4.0f,
+            TITLE, 3.0f,
+            DESCRIPTION, 1.0f,
+            OBJECTIVES, 0.5f
+    );
+    private static final String[] FIELDS = BOOSTS.keySet().toArray(new String[0]);
+
+    private static final int FETCH_SIZE = 100;
+
+    /** Key of the revision of the change feed within the commit data of the index. */
+    private static final String REVISION = "revision";
+
+    private final EntityManager entityManager;
+
+    private final ChangeFeed feed;
+
+    private final HttpErrorGenerator errorGenerator;
+
+    @ConfigProperty(name = "dcis.search.directory", defaultValue = "target/search-index")
+    String directory;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private IndexWriter writer;
+    private SearcherManager searchers;
+    private long revision = -1L;
+
+
+    // the persistence unit resolves its datasource per request (see ReplicaRouting).
+    @ActivateRequestContext
+    void open(@Observes final StartupEvent event) throws IOException {
+        writer = new IndexWriter(
+                FSDirectory.open(Path.of(directory)),
+                new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+        );
+        searchers = new SearcherManager(writer, null);
+
+        writer.getLiveCommitData().forEach(e -> {
+            if (REVISION.equals(e.getKey())) {
+                revision = Long.parseLong(e.getValue());
+            }
+        });
+
+        log.info("Opened dispatch search index. directory={}, documents={}, revision={}",
+                directory, writer.getDocStats().numDocs, revision);
+
+        if (writer.getDocStats().numDocs == 0 || revision < 0) {
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (searchers != null) {
+            searchers.close();
+        }
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+
+    /**
+     * Adds or replaces the dispatch in the index. The change is visible after the next {@link #refresh()}.
+     *
+     * @param data the dispatch as committed to the database.
+     */
+    public void index(final Operation data) {
+        try {
+            writer.updateDocument(new Term(ID, data.getId().toString()), toDocument(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.debug("Indexed dispatch. id={}, code={}", data.getId(), data.getCode());
+    }
+
+    /**
+     * Removes the dispatch from the index. The change is visible after the next {@link #refresh()}.
+     *
+     * @param id the id of the removed dispatch.
+     */
+    public void remove(final UUID id) {
+        try {
+            writer.deleteDocuments(new Term(ID, id.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.debug("Removed dispatch from index. id={}", id);
+    }
+
+    /**
+     * Makes the changes written so far visible to the searches. The changes are not synced to disk, this is done by
+     * {@link #sync()}.
+     */
+    public void refresh() {
+        try {
+            searchers.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Applies the dispatches changed by all instances since the last sync and commits the index with the revision
+     * read up to.
+     */
+    @Scheduled(
+            identity = "dispatch-search-sync",
+            every = "{dcis.search.sync}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP
+    )
+    @ActivateRequestContext
+    @Transactional
+    synchronized void sync() {
+        long count = 0;
+
+        ChangeSet changes;
+        do {
+            changes = feed.changes(revision, Set.of(ChangedEntity.DISPATCH));
+            count += apply(changes.getChanges());
+
+            revision = changes.getUntil();
+        } while (changes.isMore());
+
+        try {
+            if (count > 0) {
+                searchers.maybeRefresh();
+            }
+            if (count > 0 || writer.hasUncommittedChanges()) {
+                commit();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.trace("Synced dispatch search index. revision={}, changes={}", revision, count);
+    }
+
+    /**
+     * Replaces the complete index with the dispatches read from the database.
+     *
+     * @return the number of indexed dispatches.
+     */
+    @Transactional
+    public synchronized long rebuild() {
+        Session session = entityManager.unwrap(Session.class);
+
+        // changes committed while the rebuild runs are applied by the next sync.
+        revision = feed.changes(-1L, Set.of(ChangedEntity.DISPATCH)).getUntil();
+
+        long count = 0;
+        try (ScrollableResults rows = session.createQuery("SELECT o FROM Operation o", Operation.class)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .setFetchSize(FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            writer.deleteAll();
+
+            while (rows.next()) {
+                Operation data = (Operation) rows.get(0);
+                writer.addDocument(toDocument(data));
+                session.detach(data);
+
+                if (++count % FETCH_SIZE == 0) {
+                    session.clear();
+                }
+            }
+
+            commit();
+            searchers.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Rebuilt dispatch search index. documents={}, revision={}", count, revision);
+        return count;
+    }
+
+    /**
+     * Searches the dispatches. The query supports the Lucene query syntax (phrases, +/- and wildcards). All terms
+     * have to match.
+     *
+     * @param query the search query.
+     * @param max the maximum number of results.
+     * @return the best matching dispatches, best match first.
+     */
+    public BasicList search(final String query, final int max) {
+        if (query == null || query.isBlank() || max <= 0) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "A query and a positive size are required.",
+                    Map.of("size", Integer.toString(max))
+            );
+        }
+
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(FIELDS, analyzer, BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+
+        Query parsed;
+        try {
+            parsed = parser.parse(query);
+        } catch (ParseException e) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The search query is invalid.",
+                    Map.of("q", query)
+            );
+        }
+
+        try {
+            IndexSearcher searcher = searchers.acquire();
+            try {
+                TopDocs hits = searcher.search(parsed, max);
+
+                List<BasicData> data = new ArrayList<>(hits.scoreDocs.length);
+                for (ScoreDoc hit : hits.scoreDocs) {
+                    data.add(toBasicData(searcher.doc(hit.doc)));
+                }
+
+                return BasicList.builder()
+                        .kind("mission")
+                        .page(Paging.builder()
+                                .start(0)
+                                .count(data.size())
+                                .size(max)
+                                .total(hits.totalHits.value)
+                                .build())
+                        .data(data)
+                        .build();
+            } finally {
+                searchers.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private long apply(final List<ChangedEntity> changes) {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+
+        Set<UUID> ids = changes.stream().map(ChangedEntity::getId).collect(Collectors.toSet());
+        Map<UUID, Operation> stored = new HashMap<>(ids.size());
+        entityManager.unwrap(Session.class)
+                .createQuery("SELECT o FROM Operation o WHERE o.id IN :ids", Operation.class)
+                .setParameter("ids", ids)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .getResultStream()
+                .forEach(o -> stored.put(o.getId(), o));
+
+        // the entity is read in its current state, so a later change or a deletion wins over the change read.
+        for (UUID id : ids) {
+            Operation data = stored.get(id);
+            if (data != null) {
+                index(data);
+            } else {
+                remove(id);
+            }
+        }
+        entityManager.clear();
+
+        return ids.size();
+    }
+
+    private void commit() throws IOException {
+        writer.setLiveCommitData(Map.of(REVISION, Long.toString(revision)).entrySet());
+        writer.commit();
+    }
+
+    private Document toDocument(final Operation data) {
+        Document result = new Document();
+
+        result.add(new StringField(ID, data.getId().toString(), Field.Store.YES));
+        result.add(new TextField(CODE, data.getCode(), Field.Store.YES));
+        result.add(new TextField(TITLE, data.getName(), Field.Store.YES));
+        result.add(new TextField(DESCRIPTION, nonNull(data.getDescription()), Field.Store.YES));
+
+        result.add(new TextField(OBJECTIVES, nonNull(data.getObjectivesSuccess()), Field.Store.NO));
+        result.add(new TextField(OBJECTIVES, nonNull(data.getObjectivesGood()), Field.Store.NO));
+        result.add(new TextField(OBJECTIVES, nonNull(data.getObjectivesOutstanding()), Field.Store.NO));
+
+        if (data.getImage() != null) {
+            result.add(new StoredField(IMAGE, data.getImage()));
+        }
+        if (data.getCreated() != null) {
+            result.add(new StoredField(CREATED, data.getCreated().toString()));
+        }
+        if (data.getModified() != null) {
+            result.add(new StoredField(MODIFIED, data.getModified().toString()));
+        }
+
+        return result;
+    }
+
+    private BasicData toBasicData(final Document document) {
+        return BasicData.builder()
+                .id(UUID.fromString(document.get(ID)))
+                .created(parseDate(document.get(CREATED)))
+                .modified(parseDate(document.get(MODIFIED)))
+                .code(document.get(CODE))
+                .name(document.get(TITLE))
+                .description(document.get(DESCRIPTION))
+                .url(document.get(IMAGE))
+                .build();
+    }
+
+    private static String nonNull(final String value) {
+        return value != null ? value : "";
+    }
+
+    private static OffsetDateTime parseDate(final String value) {
+        return value != null ? OffsetDateTime.parse(value) : null;
+    }
+}
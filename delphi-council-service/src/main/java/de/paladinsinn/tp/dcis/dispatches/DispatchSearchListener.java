@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.dispatches;
+
+import de.paladinsinn.tp.dcis.model.jpa.Operation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.enterprise.inject.spi.CDI;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * DispatchSearchListener -- Keeps the {@link DispatchSearchIndex} in line with the written dispatches.
+ *
+ * <p>The index is only changed after the transaction has been committed, so rolled back writes never show up in
+ * the search results. All writes of a transaction are applied together and made visible with a single refresh of the
+ * index.</p>
+ *
+ * <p>The listener is registered for {@link Operation} in META-INF/orm.xml, so the data model does not depend on the
+ * search.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-25
+ */
+@Slf4j
+public class DispatchSearchListener {
+    /** Key of the pending index changes within the resources of the transaction. */
+    private static final String PENDING = DispatchSearchListener.class.getName() + ".pending";
+
+    @PostPersist
+    @PostUpdate
+    void written(final Operation data) {
+        afterCommit(index -> index.index(data));
+    }
+
+    @PostRemove
+    void removed(final Operation data) {
+        UUID id = data.getId();
+
+        afterCommit(index -> index.remove(id));
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private void afterCommit(final Consumer<DispatchSearchIndex> action) {
+        TransactionSynchronizationRegistry registry = CDI.current()
+                .select(TransactionSynchronizationRegistry.class).get();
+
+        List<Consumer<DispatchSearchIndex>> pending
+                = (List<Consumer<DispatchSearchIndex>>) registry.getResource(PENDING);
+        if (pending == null) {
+            pending = new ArrayList<>();
+            registry.putResource(PENDING, pending);
+            registry.registerInterposedSynchronization(new Apply(
+                    CDI.current().select(DispatchSearchIndex.class).get(), pending));
+        }
+
+        pending.add(action);
+    }
+
+
+    /**
+     * Applies the index changes of a committed transaction.
+     */
+    @RequiredArgsConstructor
+    private static class Apply implements Synchronization {
+        private final DispatchSearchIndex index;
+        private final List<Consumer<DispatchSearchIndex>> pending;
+
+        @Override
+        public void beforeCompletion() {}
+
+        @Override
+        public void afterCompletion(final int status) {
+            if (status != Status.STATUS_COMMITTED) {
+                return;
+            }
+
+            try {
+                pending.forEach(action -> action.accept(index));
+                index.refresh();
+            } catch (RuntimeException e) {
+                log.error("Could not update the dispatch search index. The changes are applied by the next sync.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.dispatches;
+
+import de.kaiserpfalzedv.rpg.torg.model.actors.Clearance;
+import de.paladinsinn.tp.dcis.caching.CollectionStamp;
+import de.paladinsinn.tp.dcis.caching.VersionStamp;
+import de.paladinsinn.tp.dcis.common.Language;
+import de.paladinsinn.tp.dcis.model.jpa.Operation;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.mysqlclient.MySQLPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.Tuple;
+import lombok.RequiredArgsConstructor;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ReactiveDispatchRepository -- Non-blocking read access to the dispatch catalog.
+ *
+ * <p>The queries run on the reactive MariaDB client, so no worker thread and no JDBC connection is held while the
+ * database works. They return the same projections as the {@link DispatchCatalogQueries}. The IDs are stored as
+ * BINARY(16) and converted here.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-26
+ */
+@IfBuildProperty(name = "dcis.reactive", stringValue = "true")
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+public class ReactiveDispatchRepository {
+    private static final String SELECT_BASIC_DATA
+            = "SELECT ID, CREATED, MODIFIED, CODE, TITLE, DESCRIPTION, IMAGE FROM DISPATCHES";
+    private static final String ORDER_BY_KEYSET = " ORDER BY CODE, ID";
+    private static final String SELECT_DISPATCH
+            = "SELECT ID, VERSION, CREATED, MODIFIED, REVISIONED, LANGUAGE, CODE, TITLE, CLEARANCE, DESCRIPTION,"
+            + " XP, PAYMENT, OBJECTIVES_SUCCESS, OBJECTIVES_GOOD, OBJECTIVES_OUTSTANDING, IMAGE, PUBLICATION"
+            + " FROM DISPATCHES";
+
+    private final MySQLPool client;
+
+
+    /**
+     * @return all dispatches as list entries in (CODE, ID) order.
+     */
+    public Multi<BasicData> findAllBasicData() {
+        return client.query(SELECT_BASIC_DATA + ORDER_BY_KEYSET).execute()
+                .onItem().transformToMulti(rows -> Multi.createFrom().iterable(rows))
+                .map(ReactiveDispatchRepository::toBasicData);
+    }
+
+    /**
+     * @param offset the first element to read.
+     * @param size the size of the page.
+     * @return the page of list entries (offset paging).
+     */
+    public Multi<BasicData> findBasicData(final long offset, final int size) {
+        return rows(SELECT_BASIC_DATA + ORDER_BY_KEYSET + " LIMIT ? OFFSET ?", Tuple.of(size, offset))
+                .map(ReactiveDispatchRepository::toBasicData);
+    }
+
+    /**
+     * @param code the code of the last element of the previous page or null for the first page.
+     * @param id the id of the last element of the previous page.
+     * @param size the size of the page.
+     * @return the page following the given keyset position.
+     */
+    public Multi<BasicData> findKeysetPage(final String code, final UUID id, final int size) {
+        if (code == null) {
+            return rows(SELECT_BASIC_DATA + ORDER_BY_KEYSET + " LIMIT ?", Tuple.of(size))
+                    .map(ReactiveDispatchRepository::toBasicData);
+        }
+
+        return rows(
+                SELECT_BASIC_DATA + " WHERE CODE >= ? AND (CODE > ? OR ID > ?)" + ORDER_BY_KEYSET + " LIMIT ?",
+                Tuple.of(code, code, toBinary(id), size)
+        )
+                .map(ReactiveDispatchRepository::toBasicData);
+    }
+
+    /**
+     * @return the aggregated version information of all dispatches.
+     */
+    public Uni<CollectionStamp> findCollectionStamp() {
+        return client.query("SELECT COUNT(*), SUM(VERSION), MAX(MODIFIED) FROM DISPATCHES").execute()
+                .map(rows -> {
+                    Row row = rows.iterator().next();
+                    return new CollectionStamp(row.getLong(0), row.getLong(1), toDate(row.getLocalDateTime(2)));
+                });
+    }
+
+    /**
+     * @param id the id of the dispatch.
+     * @return the version information of the dispatch or null if there is no such dispatch.
+     */
+    public Uni<VersionStamp> findVersionStamp(final UUID id) {
+        return single(
+                "SELECT VERSION, MODIFIED FROM DISPATCHES WHERE ID = ?", id,
+                row -> new VersionStamp(row.getInteger(0), toDate(row.getLocalDateTime(1)))
+        );
+    }
+
+    /**
+     * @param id the id of the dispatch.
+     * @return the dispatch or null if there is no such dispatch.
+     */
+    public Uni<Operation> findById(final UUID id) {
+        return single(SELECT_DISPATCH + " WHERE ID = ?", id, ReactiveDispatchRepository::toOperation);
+    }
+
+    /**
+     * @param ids the ids of the dispatches.
+     * @return the dispatches found (in no particular order) with one IN query.
+     */
+    public Multi<Operation> findAllById(final Collection<UUID> ids) {
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+
+        return rows(
+                SELECT_DISPATCH + " WHERE ID IN (" + placeholders + ")",
+                Tuple.from(ids.stream().<Object>map(ReactiveDispatchRepository::toBinary).toList())
+        )
+                .map(ReactiveDispatchRepository::toOperation);
+    }
+
+
+    private Multi<Row> rows(final String sql, final Tuple parameters) {
+        return client.preparedQuery(sql).execute(parameters)
+                .onItem().transformToMulti(rows -> Multi.createFrom().iterable(rows));
+    }
+
+    private <T> Uni<T> single(final String sql, final UUID id, final Function<Row, T> mapper) {
+        return client.preparedQuery(sql).execute(Tuple.of(toBinary(id)))
+                .map(RowSet::iterator)
+                .map(rows -> rows.hasNext() ? mapper.apply(rows.next()) : null);
+    }
+
+    private static Operation toOperation(final Row row) {
+        return Operation.builder()
+                .id(toUuid(row.getBuffer("ID")))
+                .version(row.getInteger("VERSION"))
+                .created(toDate(row.getLocalDateTime("CREATED")))
+                .modified(toDate(row.getLocalDateTime("MODIFIED")))
+                .revisioned(toDate(row.getLocalDateTime("REVISIONED")))
+                .language(Language.valueOf(row.getString("LANGUAGE")))
+                .code(row.getString("CODE"))
+                .name(row.getString("TITLE"))
+                .clearance(Clearance.valueOf(row.getString("CLEARANCE")))
+                .description(row.getString("DESCRIPTION"))
+                .xp(row.getInteger("XP"))
+                .payment(row.getInteger("PAYMENT"))
+                .objectivesSuccess(row.getString("OBJECTIVES_SUCCESS"))
+                .objectivesGood(row.getString("OBJECTIVES_GOOD"))
+                .objectivesOutstanding(row.getString("OBJECTIVES_OUTSTANDING"))
+                .image(row.getString("IMAGE"))
+                .publication(row.getString("PUBLICATION"))
+                .build();
+    }
+
+    private static BasicData toBasicData(final Row row) {
+        return BasicData.builder()
+                .id(toUuid(row.getBuffer("ID")))
+                .created(toDate(row.getLocalDateTime("CREATED")))
+                .modified(toDate(row.getLocalDateTime("MODIFIED")))
+                .code(row.getString("CODE"))
+                .name(row.getString("TITLE"))
+                .description(row.getString("DESCRIPTION"))
+                .url(row.getString("IMAGE"))
+                .build();
+    }
+
+    /** The TIMESTAMP columns are read in the JVM time zone, the same way hibernate reads them. */
+    private static OffsetDateTime toDate(final LocalDateTime value) {
+        return value != null ? value.atZone(ZoneId.systemDefault()).toOffsetDateTime() : null;
+    }
+
+    private static UUID toUuid(final Buffer value) {
+        ByteBuffer bytes = ByteBuffer.wrap(value.getBytes());
+        return new UUID(bytes.getLong(), bytes.getLong());
+    }
+
+    private static Buffer toBinary(final UUID value) {
+        return Buffer.buffer(
+                ByteBuffer.allocate(16)
+                        .putLong(value.getMostSignificantBits())
+                        .putLong(value.getLeastSignificantBits())
+                        .array()
+        );
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.dispatches;
+
+import de.kaiserpfalzedv.commons.core.api.Paging;
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.caching.VersionStamp;
+import de.paladinsinn.tp.dcis.model.batch.BatchResult;
+import de.paladinsinn.tp.dcis.model.jpa.Operation;
+import de.paladinsinn.tp.dcis.export.EntityExporter;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import de.paladinsinn.tp.dcis.paging.IdSelection;
+import de.paladinsinn.tp.dcis.paging.KeysetCursor;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Uni;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+
+import javax.annotation.security.PermitAll;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * ReactiveDispatchResource -- The dispatch API with non-blocking reads.
+ *
+ * <p>Replaces the {@link DispatchResource} when the deployment is built with {@code DC_REACTIVE=true}. The list and
+ * the single dispatch are read on the event loop via the {@link ReactiveDispatchRepository}. Search, export and the
+ * batch write stay blocking and run on worker threads like before.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-26
+ */
+@Schema(
+        name = "Dispatches",
+        description = "Dispatch Management Service"
+)
+@IfBuildProperty(name = "dcis.reactive", stringValue = "true")
+@ApplicationScoped
+@Path("/api/v1/dispatches")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@PermitAll
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class ReactiveDispatchResource {
+    private static final int DEFAULT_INT_PARAM = -1;
+    private static final String DEFAULT_INT_PARAM_STRING = "-1";
+
+    private final ReactiveDispatchRepository repository;
+
+    private final HttpErrorGenerator errorGenerator;
+
+    private final DispatchBatchWriter batchWriter;
+
+    private final DispatchSearchIndex searchIndex;
+
+    private final EntityExporter exporter;
+
+
+    @Schema(
+            title = "Retrieve all missions",
+            description = "Retrieves all missions (or a subpage if requested). With 'id' the dispatches with these IDs "
+                    + "are returned instead."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns a list of missions"),
+            @APIResponse(responseCode = "304", description = "The list did not change since the given ETag."),
+            @APIResponse(responseCode = "400", description = "Invalid paging parameters or too many IDs requested."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in")
+    })
+    @GET
+    public Uni<Response> index(
+            @QueryParam("start")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            final int start,
+
+            @QueryParam("size")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            final int size,
+
+            @QueryParam("cursor")
+            final String cursor,
+
+            @QueryParam("id")
+            final List<UUID> ids,
+
+            @Context
+            final Request request
+    ) {
+        if (ids != null && !ids.isEmpty()) {
+            Set<UUID> selection = IdSelection.of(ids, errorGenerator);
+
+            return repository.findAllById(selection).collect().asList()
+                    .map(data -> Response.ok(IdSelection.inRequestOrder(selection, data, Operation::getId)).build());
+        }
+
+        return repository.findCollectionStamp()
+                .flatMap(stamp -> {
+                    EntityTag tag = stamp.toEntityTag();
+
+                    Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+                    if (notModified != null) {
+                        return Uni.createFrom().item(notModified.tag(tag).build());
+                    }
+
+                    return list(start, size, cursor, stamp.getCount())
+                            .map(data -> Response.ok(data).tag(tag).build());
+                });
+    }
+
+    private Uni<BasicList> list(final int start, final int size, final String cursor, final long total) {
+        if (start == DEFAULT_INT_PARAM && size == DEFAULT_INT_PARAM) {
+            return repository.findAllBasicData().collect().asList()
+                    .map(data -> toList(data, 0, data.size(), (long) data.size(), null));
+        }
+
+        if (size <= 0) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The page size has to be positive.",
+                    Map.of("size", Integer.toString(size))
+            );
+        }
+
+        if (start == DEFAULT_INT_PARAM) {
+            KeysetCursor position = cursor != null && !cursor.isBlank() ? decodeCursor(cursor) : null;
+
+            return repository.findKeysetPage(
+                            position != null ? position.getKey() : null,
+                            position != null ? position.getId() : null,
+                            size
+                    )
+                    .collect().asList()
+                    .map(data -> toList(data, null, size, null, data.size() == size ? nextCursor(data) : null));
+        }
+
+        if (start < 0 || start % size != 0) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The start index must not be negative and has to be a multiple of the page size.",
+                    Map.of("start", Integer.toString(start), "size", Integer.toString(size))
+            );
+        }
+
+        return repository.findBasicData(start, size).collect().asList()
+                .map(data -> toList(data, start, size, total, null));
+    }
+
+    private BasicList toList(final List<BasicData> data, final Integer start, final int size, final Long total,
+                             final String next) {
+        Paging.PagingBuilder page = Paging.builder().count(data.size()).size(size);
+        if (start != null) {
+            page.start(start);
+        }
+        if (total != null) {
+            page.total(total);
+        }
+
+        return BasicList.builder()
+                .kind("mission")
+                .page(page.build())
+                .next(next)
+                .data(data)
+                .build();
+    }
+
+    private String nextCursor(final List<BasicData> data) {
+        BasicData last = data.get(data.size() - 1);
+        return KeysetCursor.builder().key(last.getCode()).id(last.getId()).build().encode();
+    }
+
+    private KeysetCursor decodeCursor(final String cursor) {
+        try {
+            return KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The cursor is invalid.",
+                    Map.of("cursor", cursor)
+            );
+        }
+    }
+
+    @Schema(
+            title = "Retrieve a single dispatch",
+            description = "Retrieves the dispatch by ID."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the requested dispatch."),
+            @APIResponse(responseCode = "304", description = "The dispatch did not change since the given ETag."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "There is no dispatch with the given ID available."),
+    })
+    @GET
+    @Path("/{id}")
+    public Uni<Response> index(
+            @PathParam("id")
+            final UUID id,
+
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH)
+            final String ifNoneMatch,
+
+            @Context
+            final Request request
+    ) {
+        // only a revalidation is worth the extra query for the stamp, else the tag is taken from the loaded entity.
+        if (ifNoneMatch == null) {
+            return load(id, request);
+        }
+
+        return repository.findVersionStamp(id)
+                .onItem().ifNull().failWith(() -> notFound(id))
+                .map(VersionStamp::toEntityTag)
+                .flatMap(tag -> {
+                    Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+                    if (notModified != null) {
+                        return Uni.createFrom().item(notModified.tag(tag).build());
+                    }
+
+                    return load(id, request);
+                });
+    }
+
+    private Uni<Response> load(final UUID id, final Request request) {
+        return repository.findById(id)
+                .onItem().ifNull().failWith(() -> notFound(id))
+                .map(data -> {
+                    EntityTag tag = new VersionStamp(data.getVersion(), data.getModified()).toEntityTag();
+
+                    Response.ResponseBuilder failed = request.evaluatePreconditions(tag);
+                    return (failed != null ? failed : Response.ok(data)).tag(tag).build();
+                });
+    }
+
+    private RuntimeException notFound(final UUID id) {
+        return errorGenerator.throwHttpProblem(
+                Response.Status.NOT_FOUND,
+                "There is no dispatch with this id.",
+                Map.of(
+                        "id", id.toString()
+                )
+        );
+    }
+
+
+    @POST
+    @Path("/batch")
+    @Blocking
+    public BatchResult batch(final List<Operation> data) {
+        return batchWriter.write(data);
+    }
+
+    @GET
+    @Path("/search")
+    @Blocking
+    public BasicList search(
+            @QueryParam("q") final String query,
+            @QueryParam("size") @DefaultValue("20") final int size
+    ) {
+        return searchIndex.search(query, size);
+    }
+
+    @GET
+    @Path("/export")
+    @Produces({"application/x-ndjson", "text/csv"})
+    @Blocking
+    public Response export(@QueryParam("format") @DefaultValue("ndjson") final String format) {
+        return exporter.export(DispatchResource.EXPORT, format);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import de.kaiserpfalzedv.rpg.torg.model.core.SuccessState;
+import de.paladinsinn.tp.dcis.model.jpa.DispatchOutcome;
+import de.paladinsinn.tp.dcis.replica.ReplicaRouting;
+import io.quarkus.arc.Arc;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.transaction.Transactional;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * DispatchOutcomes -- Keeps the number of engagements per dispatch and outcome.
+ *
+ * <p>The writers of engagements report every created, changed and deleted engagement within their transaction. The
+ * counters are changed with relative updates, so concurrent engagements of the same dispatch never overwrite each
+ * other. Every dispatch has a counter for every outcome from its creation on (see {@link #prepare(UUID)} and
+ * {@link OutcomeCounters}), so an update always locks an existing row and never the gap of a missing one. When an
+ * engagement changes its outcome, the two counters are always updated in the order of the outcomes to avoid deadlocks
+ * between concurrent changes.</p>
+ *
+ * <p>The summaries are read with one statement and cached until a transaction changing the dispatch has been
+ * committed. A dashboard read is therefore a cache lookup, independent of the number of engagements. Reads served by
+ * the replica use a cached summary but never store one, since the replica may not yet contain the last commit.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class DispatchOutcomes {
+    static final String CACHE_NAME = "dispatch-outcomes";
+
+    private final EntityManager entityManager;
+
+    private final TransactionSynchronizationRegistry transactions;
+
+    private final ReplicaRouting routing;
+
+    @CacheName(CACHE_NAME)
+    Cache cache;
+
+
+    /**
+     * @param dispatch The ID of the dispatch.
+     * @return The outcomes of all engagements of the dispatch.
+     */
+    public OutcomeSummary summary(final UUID dispatch) {
+        if (Arc.container().requestContext().isActive() && routing.isReplica()) {
+            CompletableFuture<OutcomeSummary> cached = cache.as(CaffeineCache.class).getIfPresent(dispatch);
+
+            if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+                return cached.join();
+            }
+
+            return load(dispatch);
+        }
+
+        return cache.get(dispatch, this::load).await().indefinitely();
+    }
+
+    /**
+     * Creates the counters of a new dispatch.
+     *
+     * @param dispatch The ID of the new dispatch.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void prepare(final UUID dispatch) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+
+        for (SuccessState outcome : SuccessState.values()) {
+            entityManager.persist(DispatchOutcome.builder()
+                    .dispatch(dispatch)
+                    .objectivesMet(outcome)
+                    .engagements(0)
+                    .modified(now)
+                    .build());
+        }
+    }
+
+    /**
+     * Counts a new engagement.
+     *
+     * @param dispatch The ID of the dispatch of the engagement.
+     * @param outcome The outcome of the engagement.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void created(final UUID dispatch, final SuccessState outcome) {
+        adjust(dispatch, outcome, 1);
+        invalidateAfterCommit(dispatch);
+    }
+
+    /**
+     * Moves a changed engagement to its new outcome.
+     *
+     * @param dispatch The ID of the dispatch of the engagement.
+     * @param previous The outcome before the change.
+     * @param outcome The outcome after the change.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void changed(final UUID dispatch, final SuccessState previous, final SuccessState outcome) {
+        if (previous == outcome) {
+            return;
+        }
+
+        if (previous.ordinal() < outcome.ordinal()) {
+            adjust(dispatch, previous, -1);
+            adjust(dispatch, outcome, 1);
+        } else {
+            adjust(dispatch, outcome, 1);
+            adjust(dispatch, previous, -1);
+        }
+        invalidateAfterCommit(dispatch);
+    }
+
+    /**
+     * Removes a deleted engagement from the counters.
+     *
+     * @param dispatch The ID of the dispatch of the engagement.
+     * @param outcome The outcome of the engagement.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void deleted(final UUID dispatch, final SuccessState outcome) {
+        adjust(dispatch, outcome, -1);
+        invalidateAfterCommit(dispatch);
+    }
+
+
+    private OutcomeSummary load(final UUID dispatch) {
+        return OutcomeSummary.of(
+                dispatch,
+                entityManager.createQuery(
+                                "SELECT o FROM DispatchOutcome o WHERE o.dispatch = :dispatch", DispatchOutcome.class)
+                        .setParameter("dispatch", dispatch)
+                        .getResultList()
+        );
+    }
+
+    private void adjust(final UUID dispatch, final SuccessState outcome, final int delta) {
+        if (update(dispatch, outcome, delta, OffsetDateTime.now(ZoneOffset.UTC)) == 0) {
+            throw new IllegalStateException(
+                    "The dispatch has no counter for the outcome. dispatch=" + dispatch + ", outcome=" + outcome);
+        }
+    }
+
+    private int update(final UUID dispatch, final SuccessState outcome, final int delta, final OffsetDateTime now) {
+        return entityManager.createQuery(
+                        "UPDATE DispatchOutcome o SET o.engagements = o.engagements + :delta, o.modified = :now "
+                                + "WHERE o.dispatch = :dispatch AND o.objectivesMet = :outcome")
+                .setParameter("delta", delta)
+                .setParameter("now", now)
+                .setParameter("dispatch", dispatch)
+                .setParameter("outcome", outcome)
+                .executeUpdate();
+    }
+
+    private void invalidateAfterCommit(final UUID dispatch) {
+        transactions.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {}
+
+            @Override
+            public void afterCompletion(final int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    cache.invalidate(dispatch).await().indefinitely();
+                    log.debug("Invalidated dispatch outcomes. dispatch={}", dispatch);
+                }
+            }
+        });
+    }
+}
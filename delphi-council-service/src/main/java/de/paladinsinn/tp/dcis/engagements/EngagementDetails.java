@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import de.kaiserpfalzedv.rpg.torg.model.core.SuccessState;
+import de.paladinsinn.tp.dcis.model.jpa.Engagment;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * EngagementDetails -- An engagement with the ids of its dispatch and its operatives.
+ *
+ * <p>The JSON representation matches the dispatch report of the REST clients.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-19
+ */
+@Schema(description = "An engagement of a dispatch with its operatives.")
+@Jacksonized
+@Builder
+@Value
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+public class EngagementDetails {
+    UUID id;
+    Integer version;
+    OffsetDateTime created;
+    OffsetDateTime modified;
+
+    @Schema(description = "ID of the dispatch of this engagement.")
+    UUID operation;
+
+    @Schema(description = "IDs of the operatives taking part in this engagement.")
+    @Singular
+    Set<UUID> operatives;
+
+    String gameMaster;
+
+    @Schema(description = "Date of the engagement (start of day, UTC).")
+    OffsetDateTime date;
+
+    SuccessState objectivesMet;
+    String achievements;
+    String notes;
+
+
+    /**
+     * @param data the engagement (with its dispatch loaded).
+     * @param operatives the ids of the operatives of the engagement.
+     * @return the details of the engagement.
+     */
+    public static EngagementDetails of(final Engagment data, final Set<UUID> operatives) {
+        return EngagementDetails.builder()
+                .id(data.getId())
+                .version(data.getVersion())
+                .created(data.getCreated())
+                .modified(data.getModified())
+                .operation(data.getDispatch().getId())
+                .operatives(operatives)
+                .gameMaster(data.getGameMaster())
+                .date(data.getDate() != null ? data.getDate().atStartOfDay().atOffset(ZoneOffset.UTC) : null)
+                .objectivesMet(data.getObjectivesMet())
+                .achievements(data.getAchievements())
+                .notes(data.getNotes())
+                .build();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.model.Outcome;
+import de.paladinsinn.tp.dcis.model.jpa.Engagment;
+import de.paladinsinn.tp.dcis.model.jpa.LedgerEntry;
+import de.paladinsinn.tp.dcis.model.jpa.Operative;
+import de.paladinsinn.tp.dcis.model.jpa.OperativeDispatchReport;
+import de.paladinsinn.tp.dcis.operatives.OperativeLedger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceException;
+import javax.transaction.Transactional;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * EngagementOperatives -- Adds operatives to engagements and removes them again.
+ *
+ * <p>The xp and payment of the dispatch are booked to the ledger of the operative in the same transaction, so the
+ * report and the totals of the operative are always consistent.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class EngagementOperatives {
+    private final EngagementRepository repository;
+
+    private final OperativeLedger ledger;
+
+    private final EntityManager entityManager;
+
+    private final HttpErrorGenerator errorGenerator;
+
+
+    /**
+     * Adds the operative to the engagement and books the dispatch for the operative.
+     *
+     * @param dispatch The ID of the dispatch.
+     * @param engagement The ID of the engagement.
+     * @param operative The ID of the operative.
+     * @param outcome The outcome for the operative.
+     * @return The report of the operative.
+     */
+    @Transactional
+    public OperativeDispatchReport add(final UUID dispatch, final UUID engagement, final UUID operative, final Outcome outcome) {
+        Engagment data = repository.loadEngagement(dispatch, engagement)
+                .orElseThrow(() -> errorGenerator.throwHttpProblem(
+                        Response.Status.NOT_FOUND,
+                        "There is no engagement with this id for the dispatch.",
+                        Map.of("dispatch", dispatch.toString(), "engagement", engagement.toString())
+                ));
+
+        // the operative is locked before the check, so a concurrent add of the same operative waits and finds the
+        // report of the first one (the ledger locks the operative the same way).
+        Operative member = entityManager.find(Operative.class, operative, LockModeType.PESSIMISTIC_WRITE);
+        if (member == null) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.NOT_FOUND,
+                    "There is no operative with this id.",
+                    Map.of("operative", operative.toString())
+            );
+        }
+
+        if (load(engagement, operative) != null) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.CONFLICT,
+                    "The operative already took part in this engagement.",
+                    Map.of("engagement", engagement.toString(), "operative", operative.toString())
+            );
+        }
+
+        OperativeDispatchReport result = OperativeDispatchReport.builder()
+                .id(UUID.randomUUID())
+                .report(data)
+                .operative(member)
+                .achievements(outcome != null ? outcome.getAchievements() : null)
+                .notes(outcome != null ? outcome.getNotes() : null)
+                .build();
+        store(result, engagement, operative);
+
+        ledger.book(result);
+
+        log.info("Added operative to engagement. engagement={}, operative={}", engagement, operative);
+        return result;
+    }
+
+    /**
+     * Removes the operative from the engagement and reverses the booking of the dispatch.
+     *
+     * @param dispatch The ID of the dispatch.
+     * @param engagement The ID of the engagement.
+     * @param operative The ID of the operative.
+     */
+    @Transactional
+    public void remove(final UUID dispatch, final UUID engagement, final UUID operative) {
+        OperativeDispatchReport report = load(engagement, operative);
+        if (report == null || !dispatch.equals(report.getReport().getDispatch().getId())) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.NOT_FOUND,
+                    "The operative did not take part in this engagement.",
+                    Map.of(
+                            "dispatch", dispatch.toString(),
+                            "engagement", engagement.toString(),
+                            "operative", operative.toString()
+                    )
+            );
+        }
+
+        ledger.reverse(LedgerEntry.Source.DISPATCH, report.getId());
+        entityManager.remove(report);
+
+        log.info("Removed operative from engagement. engagement={}, operative={}", engagement, operative);
+    }
+
+
+    /**
+     * Removes all operatives of the engagement and reverses their bookings. Used when the engagement is deleted.
+     *
+     * @param engagement The ID of the engagement.
+     * @return The number of removed operatives.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    int removeAll(final UUID engagement) {
+        List<OperativeDispatchReport> reports = entityManager.createQuery(
+                        "SELECT r FROM OperativeDispatchReport r WHERE r.report.id = :engagement",
+                        OperativeDispatchReport.class
+                )
+                .setParameter("engagement", engagement)
+                .getResultList();
+
+        for (OperativeDispatchReport report : reports) {
+            ledger.reverse(LedgerEntry.Source.DISPATCH, report.getId());
+            entityManager.remove(report);
+        }
+
+        return reports.size();
+    }
+
+
+    /**
+     * Stores the report. A second report of the operative is rejected by the unique constraint of the table, even
+     * when it is written without the lock on the operative.
+     */
+    private void store(final OperativeDispatchReport report, final UUID engagement, final UUID operative) {
+        try {
+            entityManager.persist(report);
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            if (!isDuplicate(e)) {
+                throw e;
+            }
+
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.CONFLICT,
+                    "The operative already took part in this engagement.",
+                    Map.of("engagement", engagement.toString(), "operative", operative.toString())
+            );
+        }
+    }
+
+    private static boolean isDuplicate(final PersistenceException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+
+        String constraint = ((ConstraintViolationException) e.getCause()).getConstraintName();
+        return constraint != null && constraint.toUpperCase(Locale.ROOT).contains("DISPATCHREPORTS_OPERATIVES_UK");
+    }
+
+    private OperativeDispatchReport load(final UUID engagement, final UUID operative) {
+        return entityManager.createQuery(
+                        "SELECT r FROM OperativeDispatchReport r JOIN FETCH r.report e JOIN FETCH e.dispatch "
+                                + "WHERE e.id = :engagement AND r.operative.id = :operative",
+                        OperativeDispatchReport.class
+                )
+                .setParameter("engagement", engagement)
+                .setParameter("operative", operative)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import de.paladinsinn.tp.dcis.model.jpa.Engagment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * EngagementQueries -- The read queries for engagements.
+ *
+ * <p>Every query fetches the dispatch of the engagements with the same statement. The operatives are read with one
+ * additional statement for all engagements of a page, so the number of statements does not depend on the number of
+ * engagements or operatives.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-19
+ */
+public interface EngagementQueries {
+    /**
+     * @param dispatch the dispatch of the engagements.
+     * @param page the page to retrieve (may be unpaged).
+     * @return the engagements of the dispatch ordered by date.
+     */
+    Page<Engagment> listForDispatch(UUID dispatch, Pageable page);
+
+    /**
+     * @param dispatch the dispatch of the engagements.
+     * @param gameMaster the game master running the engagements.
+     * @param page the page to retrieve (may be unpaged).
+     * @return the engagements of the dispatch run by the game master ordered by date.
+     */
+    Page<Engagment> listForGameMaster(UUID dispatch, String gameMaster, Pageable page);
+
+    /**
+     * @param dispatch the dispatch of the engagements.
+     * @param operative the operative taking part in the engagements.
+     * @param page the page to retrieve (may be unpaged).
+     * @return the engagements of the dispatch the operative took part in ordered by date.
+     */
+    Page<Engagment> listForOperative(UUID dispatch, UUID operative, Pageable page);
+
+    /**
+     * @param dispatch the dispatch of the engagement.
+     * @param id the id of the engagement.
+     * @return the engagement with its dispatch.
+     */
+    Optional<Engagment> loadEngagement(UUID dispatch, UUID id);
+
+    /**
+     * Reads the operatives of many engagements with a single statement.
+     *
+     * @param engagements the ids of the engagements.
+     * @return the ids of the operatives per engagement. Engagements without operatives are missing.
+     */
+    Map<UUID, Set<UUID>> loadOperativeIds(Collection<UUID> engagements);
+}
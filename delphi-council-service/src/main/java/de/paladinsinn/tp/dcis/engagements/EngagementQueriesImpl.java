@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import de.paladinsinn.tp.dcis.model.jpa.Engagment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * EngagementQueriesImpl -- Implementation of the engagement read queries with fetch joins.
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-19
+ */
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+public class EngagementQueriesImpl implements EngagementQueries {
+    private static final String SELECT_WITH_DISPATCH = "SELECT e FROM Engagment e JOIN FETCH e.dispatch d";
+    private static final String COUNT = "SELECT count(e) FROM Engagment e";
+    private static final String ORDER_BY_DATE = " ORDER BY e.date, e.id";
+
+    private static final String WHERE_DISPATCH = " WHERE e.dispatch.id = :dispatch";
+    private static final String AND_GAME_MASTER = " AND e.gameMaster = :gameMaster";
+    private static final String AND_OPERATIVE = " AND EXISTS (SELECT r.id FROM OperativeDispatchReport r"
+            + " WHERE r.report = e AND r.operative.id = :operative)";
+
+    private final EntityManager entityManager;
+
+
+    @Override
+    public Page<Engagment> listForDispatch(final UUID dispatch, final Pageable page) {
+        return page(WHERE_DISPATCH, Map.of("dispatch", dispatch), page);
+    }
+
+    @Override
+    public Page<Engagment> listForGameMaster(final UUID dispatch, final String gameMaster, final Pageable page) {
+        return page(WHERE_DISPATCH + AND_GAME_MASTER, Map.of("dispatch", dispatch, "gameMaster", gameMaster), page);
+    }
+
+    @Override
+    public Page<Engagment> listForOperative(final UUID dispatch, final UUID operative, final Pageable page) {
+        return page(WHERE_DISPATCH + AND_OPERATIVE, Map.of("dispatch", dispatch, "operative", operative), page);
+    }
+
+    @Override
+    public Optional<Engagment> loadEngagement(final UUID dispatch, final UUID id) {
+        return entityManager.createQuery(SELECT_WITH_DISPATCH + WHERE_DISPATCH + " AND e.id = :id", Engagment.class)
+                .setParameter("dispatch", dispatch)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public Map<UUID, Set<UUID>> loadOperativeIds(final Collection<UUID> engagements) {
+        Map<UUID, Set<UUID>> result = new HashMap<>(engagements.size());
+        if (engagements.isEmpty()) {
+            return result;
+        }
+
+        // selects only the foreign key columns, neither the reports nor the operatives are loaded.
+        entityManager.createQuery(
+                        "SELECT r.report.id, r.operative.id FROM OperativeDispatchReport r WHERE r.report.id IN :engagements",
+                        Object[].class
+                )
+                .setParameter("engagements", engagements)
+                .getResultStream()
+                .forEach(row -> result.computeIfAbsent((UUID) row[0], k -> new HashSet<>()).add((UUID) row[1]));
+
+        return result;
+    }
+
+
+    /**
+     * Loads a page of engagements with their dispatches in one statement. The total is counted with a second
+     * statement only if it can not be derived from the page itself.
+     */
+    private Page<Engagment> page(final String where, final Map<String, Object> parameters, final Pageable page) {
+        TypedQuery<Engagment> query = entityManager.createQuery(SELECT_WITH_DISPATCH + where + ORDER_BY_DATE, Engagment.class);
+        parameters.forEach(query::setParameter);
+
+        if (page.isUnpaged()) {
+            List<Engagment> data = query.getResultList();
+            return new PageImpl<>(data, page, data.size());
+        }
+
+        List<Engagment> data = query
+                .setFirstResult((int) page.getOffset())
+                .setMaxResults(page.getPageSize())
+                .getResultList();
+
+        long total = page.getOffset() + data.size();
+        if (data.size() == page.getPageSize() || (data.isEmpty() && page.getOffset() > 0)) {
+            TypedQuery<Long> count = entityManager.createQuery(COUNT + where, Long.class);
+            parameters.forEach(count::setParameter);
+            total = count.getSingleResult();
+        }
+
+        return new PageImpl<>(data, page, total);
+    }
+}
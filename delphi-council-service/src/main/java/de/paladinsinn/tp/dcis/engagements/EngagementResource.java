@@ -0,0 +1,474 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import de.kaiserpfalzedv.commons.core.api.Paging;
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.export.EntityExporter;
+import de.paladinsinn.tp.dcis.export.ExportDefinition;
+import de.paladinsinn.tp.dcis.model.jpa.Engagment;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.quarkus.arc.properties.UnlessBuildProperty;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import javax.annotation.security.PermitAll;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Schema(
+        name = "Engagements",
+        description = "Engagement Management Service"
+)
+@UnlessBuildProperty(name = "dcis.virtual-threads", stringValue = "true", enableIfMissing = true)
+@ApplicationScoped
+@Path("/api/v1/engagements")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@PermitAll
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class EngagementResource {
+    private static final int DEFAULT_INT_PARAM = -1;
+    private static final String DEFAULT_INT_PARAM_STRING = "-1";
+
+    private static final ExportDefinition<Engagment> EXPORT = ExportDefinition.<Engagment>builder()
+            .name("engagements")
+            .type(Engagment.class)
+            .query("SELECT e FROM Engagment e JOIN FETCH e.dispatch ORDER BY e.date, e.id")
+            .column("ID", Engagment::getId)
+            .column("VERSION", Engagment::getVersion)
+            .column("DISPATCH_ID", e -> e.getDispatch().getId())
+            .column("DISPATCH_CODE", e -> e.getDispatch().getCode())
+            .column("GAME_MASTER", Engagment::getGameMaster)
+            .column("MISSION_DATE", Engagment::getDate)
+            .column("OBJECTIVES_MET", Engagment::getObjectivesMet)
+            .column("ACHIEVEMENTS", Engagment::getAchievements)
+            .column("NOTES", Engagment::getNotes)
+            .build();
+
+    private final EngagementRepository repository;
+
+    private final HttpErrorGenerator errorGenerator;
+
+    private final EntityExporter exporter;
+
+    private final EngagementOperatives operatives;
+
+    private final EngagementWriter writer;
+
+    private final DispatchOutcomes outcomes;
+
+
+    @Schema(
+            title = "Export all engagements",
+            description = "Streams all engagements as NDJSON (one JSON document per line) or CSV."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns all engagements"),
+            @APIResponse(responseCode = "400", description = "The requested format is not supported."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in")
+    })
+    @GET
+    @Path("/export")
+    @Produces({"application/x-ndjson", "text/csv"})
+    public Response export(
+            @Schema(description = "Format of the export: 'ndjson' or 'csv'.", nullable = true)
+            @QueryParam("format")
+            @DefaultValue("ndjson")
+            String format
+    ) {
+        return exporter.export(EXPORT, format);
+    }
+
+    @Schema(
+            title = "Retrieve the engagements of a dispatch",
+            description = "Retrieves all engagements of the dispatch (or a subpage if requested)."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns a list of engagements"),
+            @APIResponse(responseCode = "400", description = "The paging parameters are invalid."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in")
+    })
+    @GET
+    @Path("/{dispatch}")
+    public BasicList index(
+            @Schema(description = "ID of the dispatch.", required = true)
+            @PathParam("dispatch")
+            final UUID dispatch,
+
+            @Schema(description = "Start index of the list in total set of engagements.", nullable = true)
+            @QueryParam("start")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            final int start,
+
+            @Schema(description = "Size of page to request.", nullable = true)
+            @QueryParam("size")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            final int size
+    ) {
+        return list(repository.listForDispatch(dispatch, pageable(start, size)), start, size);
+    }
+
+    @Schema(
+            title = "Retrieve the engagements of a dispatch with their operatives",
+            description = "Retrieves the engagements of the dispatch including the IDs of their operatives with two "
+                    + "SQL statements (three if paged) independent of the number of engagements and operatives."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the engagements with their operatives"),
+            @APIResponse(responseCode = "400", description = "The paging parameters are invalid."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in")
+    })
+    @GET
+    @Path("/{dispatch}/details")
+    public List<EngagementDetails> details(
+            @Schema(description = "ID of the dispatch.", required = true)
+            @PathParam("dispatch")
+            final UUID dispatch,
+
+            @Schema(description = "Start index of the list in total set of engagements.", nullable = true)
+            @QueryParam("start")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            final int start,
+
+            @Schema(description = "Size of page to request.", nullable = true)
+            @QueryParam("size")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            final int size
+    ) {
+        List<Engagment> data = repository.listForDispatch(dispatch, pageable(start, size)).getContent();
+        Map<UUID, Set<UUID>> operatives = repository.loadOperativeIds(data.stream().map(Engagment::getId).toList());
+
+        log.debug("engagements loaded. dispatch={}, count={}, with-operatives={}",
+                dispatch, data.size(), operatives.size());
+
+        return data.stream()
+                .map(e -> EngagementDetails.of(e, operatives.getOrDefault(e.getId(), Set.of())))
+                .toList();
+    }
+
+    @Schema(
+            title = "Retrieve the engagements of a dispatch run by a game master",
+            description = "Retrieves the engagements of the dispatch run by the game master."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns a list of engagements"),
+            @APIResponse(responseCode = "400", description = "The paging parameters are invalid."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in")
+    })
+    @GET
+    @Path("/{dispatch}/gm/{id}")
+    public BasicList indexByGameMaster(
+            @Schema(description = "ID of the dispatch.", required = true)
+            @PathParam("dispatch")
+            final UUID dispatch,
+
+            @Schema(description = "Name of the game master.", required = true)
+            @PathParam("id")
+            final String gameMaster,
+
+            @QueryParam("start")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            final int start,
+
+            @QueryParam("size")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            final int size
+    ) {
+        return list(repository.listForGameMaster(dispatch, gameMaster, pageable(start, size)), start, size);
+    }
+
+    @Schema(
+            title = "Retrieve the engagements of a dispatch an operative took part in",
+            description = "Retrieves the engagements of the dispatch the operative took part in."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns a list of engagements"),
+            @APIResponse(responseCode = "400", description = "The operative ID or the paging parameters are invalid."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in")
+    })
+    @GET
+    @Path("/{dispatch}/operative/{id}")
+    public BasicList indexByOperative(
+            @Schema(description = "ID of the dispatch.", required = true)
+            @PathParam("dispatch")
+            final UUID dispatch,
+
+            @Schema(description = "ID of the operative.", required = true)
+            @PathParam("id")
+            final String operative,
+
+            @QueryParam("start")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            final int start,
+
+            @QueryParam("size")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            final int size
+    ) {
+        UUID id;
+        try {
+            id = UUID.fromString(operative);
+        } catch (IllegalArgumentException e) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The operative id is invalid.",
+                    Map.of("operative", operative)
+            );
+        }
+
+        return list(repository.listForOperative(dispatch, id, pageable(start, size)), start, size);
+    }
+
+    @Schema(
+            title = "Retrieve a single engagement",
+            description = "Retrieves the engagement with the IDs of its operatives."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the requested engagement."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "There is no engagement with the given ID for this dispatch."),
+    })
+    @GET
+    @Path("/{dispatch}/{engagement}")
+    public EngagementDetails retrieve(
+            @Schema(description = "ID of the dispatch.", required = true)
+            @PathParam("dispatch")
+            final UUID dispatch,
+
+            @Schema(description = "ID of the engagement.", required = true)
+            @PathParam("engagement")
+            final UUID engagement
+    ) {
+        Engagment data = repository.loadEngagement(dispatch, engagement)
+                .orElseThrow(() -> errorGenerator.throwHttpProblem(
+                        Response.Status.NOT_FOUND,
+                        "There is no engagement with this id for the dispatch.",
+                        Map.of(
+                                "dispatch", dispatch.toString(),
+                                "engagement", engagement.toString()
+                        )
+                ));
+
+        return EngagementDetails.of(
+                data,
+                repository.loadOperativeIds(List.of(engagement)).getOrDefault(engagement, Set.of())
+        );
+    }
+
+    @Schema(
+            title = "Retrieve the outcomes of a dispatch",
+            description = "Retrieves the number and share of engagements per outcome of the dispatch. The counters "
+                    + "are maintained with every engagement write, so the read does not depend on the number of "
+                    + "engagements."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the outcomes of the dispatch."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in.")
+    })
+    @GET
+    @Path("/{dispatch}/outcomes")
+    public OutcomeSummary outcomes(
+            @Schema(description = "ID of the dispatch.", required = true)
+            @PathParam("dispatch")
+            final UUID dispatch
+    ) {
+        return outcomes.summary(dispatch);
+    }
+
+    @Schema(
+            title = "Create an engagement",
+            description = "Creates a new engagement of the dispatch. The operatives are added separately."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the created engagement."),
+            @APIResponse(responseCode = "400", description = "The engagement is invalid."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "There is no dispatch with the given ID.")
+    })
+    @POST
+    @Path("/{dispatch}")
+    public EngagementDetails create(
+            @Schema(description = "ID of the dispatch.", required = true)
+            @PathParam("dispatch")
+            final UUID dispatch,
+
+            final EngagementDetails data
+    ) {
+        return writer.create(dispatch, data);
+    }
+
+    @Schema(
+            title = "Change an engagement",
+            description = "Changes the engagement. The operatives of the engagement are not changed."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the changed engagement."),
+            @APIResponse(responseCode = "400", description = "The engagement is invalid."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "There is no engagement with the given ID for this dispatch."),
+            @APIResponse(responseCode = "409", description = "The engagement has been changed in between.")
+    })
+    @PUT
+    @Path("/{dispatch}/{engagement}")
+    public EngagementDetails update(
+            @Schema(description = "ID of the dispatch.", required = true)
+            @PathParam("dispatch")
+            final UUID dispatch,
+
+            @Schema(description = "ID of the engagement.", required = true)
+            @PathParam("engagement")
+            final UUID engagement,
+
+            final EngagementDetails data
+    ) {
+        return writer.update(dispatch, engagement, data);
+    }
+
+    @Schema(
+            title = "Delete an engagement",
+            description = "Deletes the engagement and reverses the bookings of its operatives."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "204", description = "The engagement has been deleted."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "There is no engagement with the given ID for this dispatch.")
+    })
+    @DELETE
+    @Path("/{dispatch}/{engagement}")
+    public void delete(
+            @Schema(description = "ID of the dispatch.", required = true)
+            @PathParam("dispatch")
+            final UUID dispatch,
+
+            @Schema(description = "ID of the engagement.", required = true)
+            @PathParam("engagement")
+            final UUID engagement
+    ) {
+        writer.delete(dispatch, engagement);
+    }
+
+    @Schema(
+            title = "Add an operative to an engagement",
+            description = "Adds the operative to the engagement and books xp and payment of the dispatch for the operative."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "204", description = "The operative has been added."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "There is no such engagement or operative."),
+            @APIResponse(responseCode = "409", description = "The operative already took part in the engagement.")
+    })
+    @PUT
+    @Path("/{dispatch}/{engagement}/operative/{operative}")
+    public void addOperative(
+            @Schema(description = "ID of the dispatch.", required = true)
+            @PathParam("dispatch")
+            final UUID dispatch,
+
+            @Schema(description = "ID of the engagement.", required = true)
+            @PathParam("engagement")
+            final UUID engagement,
+
+            @Schema(description = "ID of the operative.", required = true)
+            @PathParam("operative")
+            final UUID operative,
+
+            final OperativeOutcome outcome
+    ) {
+        operatives.add(dispatch, engagement, operative, outcome);
+    }
+
+    @Schema(
+            title = "Remove an operative from an engagement",
+            description = "Removes the operative from the engagement and reverses the booking of the dispatch."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "204", description = "The operative has been removed."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "The operative did not take part in the engagement.")
+    })
+    @DELETE
+    @Path("/{dispatch}/{engagement}/operative/{operative}")
+    public void removeOperative(
+            @Schema(description = "ID of the dispatch.", required = true)
+            @PathParam("dispatch")
+            final UUID dispatch,
+
+            @Schema(description = "ID of the engagement.", required = true)
+            @PathParam("engagement")
+            final UUID engagement,
+
+            @Schema(description = "ID of the operative.", required = true)
+            @PathParam("operative")
+            final UUID operative
+    ) {
+        operatives.remove(dispatch, engagement, operative);
+    }
+
+
+    private Pageable pageable(final int start, final int size) {
+        if (start == DEFAULT_INT_PARAM && size == DEFAULT_INT_PARAM) {
+            return Pageable.unpaged();
+        }
+
+        if (start < 0 || size <= 0 || start % size != 0) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The start has to be given as a multiple of the page size and the page size has to be positive.",
+                    Map.of("start", Integer.toString(start), "size", Integer.toString(size))
+            );
+        }
+
+        return PageRequest.of(start / size, size);
+    }
+
+    private BasicList list(final Page<Engagment> raw, final int start, final int size) {
+        log.debug("engagements loaded. count={}, total={}", raw.getNumberOfElements(), raw.getTotalElements());
+
+        return BasicList.builder()
+                .kind("engagement")
+                .page(Paging.builder()
+                        .start(Math.max(start, 0))
+                        .count(raw.getNumberOfElements())
+                        .size(size != DEFAULT_INT_PARAM ? size : raw.getNumberOfElements())
+                        .total(raw.getTotalElements())
+                        .build())
+                .data(raw.getContent().stream().map(this::toBasicData).toList())
+                .build();
+    }
+
+    private BasicData toBasicData(final Engagment data) {
+        return BasicData.builder()
+                .id(data.getId())
+                .created(data.getCreated())
+                .modified(data.getModified())
+                .code(data.getCode())
+                .name(data.getName())
+                .description(data.getNotes())
+                .url(data.getDispatch().getImage())
+                .build();
+    }
+}
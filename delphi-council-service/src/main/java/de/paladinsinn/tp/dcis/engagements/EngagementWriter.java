@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.kaiserpfalzedv.rpg.torg.model.core.SuccessState;
+import de.paladinsinn.tp.dcis.model.jpa.Engagment;
+import de.paladinsinn.tp.dcis.model.jpa.Operation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import javax.ws.rs.core.Response;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * EngagementWriter -- Creates, changes and deletes engagements.
+ *
+ * <p>Every write reports the outcome of the engagement to the {@link DispatchOutcomes} within the same transaction,
+ * so the outcome counters of the dispatch always match the stored engagements.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class EngagementWriter {
+    private final EngagementRepository repository;
+
+    private final EngagementOperatives operatives;
+
+    private final DispatchOutcomes outcomes;
+
+    private final EntityManager entityManager;
+
+    private final HttpErrorGenerator errorGenerator;
+
+
+    /**
+     * Creates a new engagement of the dispatch. The operatives are added separately.
+     *
+     * @param dispatch The ID of the dispatch.
+     * @param data The engagement.
+     * @return The stored engagement.
+     */
+    @Transactional
+    public EngagementDetails create(final UUID dispatch, final EngagementDetails data) {
+        validate(dispatch, data);
+
+        Operation operation = entityManager.find(Operation.class, dispatch);
+        if (operation == null) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.NOT_FOUND,
+                    "There is no dispatch with this id.",
+                    Map.of("dispatch", dispatch.toString())
+            );
+        }
+
+        Engagment result = Engagment.builder()
+                .id(data.getId() != null ? data.getId() : UUID.randomUUID())
+                .dispatch(operation)
+                .gameMaster(data.getGameMaster())
+                .date(data.getDate().toLocalDate())
+                .objectivesMet(data.getObjectivesMet())
+                .achievements(data.getAchievements())
+                .notes(data.getNotes())
+                .build();
+        entityManager.persist(result);
+
+        outcomes.created(dispatch, result.getObjectivesMet());
+
+        log.info("Created engagement. dispatch={}, engagement={}, outcome={}",
+                dispatch, result.getId(), result.getObjectivesMet());
+        return EngagementDetails.of(result, Set.of());
+    }
+
+    /**
+     * Changes the engagement. The operatives of the engagement are not changed.
+     *
+     * @param dispatch The ID of the dispatch.
+     * @param engagement The ID of the engagement.
+     * @param data The new data of the engagement. If it contains a version, it has to match the stored version.
+     * @return The stored engagement.
+     */
+    @Transactional
+    public EngagementDetails update(final UUID dispatch, final UUID engagement, final EngagementDetails data) {
+        validate(dispatch, data);
+
+        Engagment stored = load(dispatch, engagement);
+        if (data.getVersion() != null && !Objects.equals(data.getVersion(), stored.getVersion())) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.CONFLICT,
+                    "The engagement has been changed.",
+                    Map.of(
+                            "engagement", engagement.toString(),
+                            "version", Objects.toString(stored.getVersion())
+                    )
+            );
+        }
+
+        SuccessState previous = stored.getObjectivesMet();
+        Engagment result = entityManager.merge(stored.toBuilder()
+                .gameMaster(data.getGameMaster())
+                .date(data.getDate().toLocalDate())
+                .objectivesMet(data.getObjectivesMet())
+                .achievements(data.getAchievements())
+                .notes(data.getNotes())
+                .build());
+
+        outcomes.changed(dispatch, previous, result.getObjectivesMet());
+
+        log.info("Changed engagement. dispatch={}, engagement={}, outcome={}",
+                dispatch, engagement, result.getObjectivesMet());
+        return EngagementDetails.of(result, repository.loadOperativeIds(Set.of(engagement))
+                .getOrDefault(engagement, Set.of()));
+    }
+
+    /**
+     * Deletes the engagement. The operatives are removed from the engagement and their bookings are reversed.
+     *
+     * @param dispatch The ID of the dispatch.
+     * @param engagement The ID of the engagement.
+     */
+    @Transactional
+    public void delete(final UUID dispatch, final UUID engagement) {
+        Engagment stored = load(dispatch, engagement);
+
+        int removed = operatives.removeAll(engagement);
+        entityManager.remove(stored);
+
+        outcomes.deleted(dispatch, stored.getObjectivesMet());
+
+        log.info("Deleted engagement. dispatch={}, engagement={}, operatives={}", dispatch, engagement, removed);
+    }
+
+
+    private Engagment load(final UUID dispatch, final UUID engagement) {
+        return repository.loadEngagement(dispatch, engagement)
+                .orElseThrow(() -> errorGenerator.throwHttpProblem(
+                        Response.Status.NOT_FOUND,
+                        "There is no engagement with this id for the dispatch.",
+                        Map.of("dispatch", dispatch.toString(), "engagement", engagement.toString())
+                ));
+    }
+
+    private void validate(final UUID dispatch, final EngagementDetails data) {
+        if (data == null || data.getGameMaster() == null || data.getGameMaster().isBlank()
+                || data.getDate() == null || data.getObjectivesMet() == null) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The engagement needs a game master, a date and an outcome.",
+                    Map.of("dispatch", dispatch.toString())
+            );
+        }
+
+        if (data.getOperation() != null && !dispatch.equals(data.getOperation())) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The engagement belongs to another dispatch.",
+                    Map.of("dispatch", dispatch.toString(), "operation", data.getOperation().toString())
+            );
+        }
+    }
+}
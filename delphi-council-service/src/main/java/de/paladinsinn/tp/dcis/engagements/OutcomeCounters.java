@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import de.kaiserpfalzedv.rpg.torg.model.core.SuccessState;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import liquibase.change.custom.CustomSqlChange;
+import liquibase.database.Database;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import liquibase.statement.SqlStatement;
+import liquibase.statement.core.RawSqlStatement;
+
+import java.util.Arrays;
+
+/**
+ * OutcomeCounters -- Migration creating the missing outcome counters of all dispatches.
+ *
+ * <p>Every dispatch has a counter for every {@link SuccessState}, so the {@link DispatchOutcomes} only update existing
+ * rows. The outcomes are taken from the enum, that's why this is no plain SQL change set.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@RegisterForReflection
+public class OutcomeCounters implements CustomSqlChange {
+    private static final String INSERT = "INSERT INTO DISPATCH_OUTCOMES "
+            + "(DISPATCH_ID, OBJECTIVES_MET, ENGAGEMENTS, MODIFIED) SELECT d.ID, '%1$s', 0, CURRENT_TIMESTAMP FROM DISPATCHES d WHERE NOT EXISTS ("
+            + "SELECT 1 FROM DISPATCH_OUTCOMES o WHERE o.DISPATCH_ID = d.ID AND o.OBJECTIVES_MET = '%1$s')";
+
+
+    @Override
+    public SqlStatement[] generateStatements(final Database database) {
+        return Arrays.stream(SuccessState.values())
+                .map(outcome -> new RawSqlStatement(String.format(INSERT, outcome.name())))
+                .toArray(SqlStatement[]::new);
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Created the missing outcome counters of the dispatches.";
+    }
+
+    @Override
+    public void setUp() {}
+
+    @Override
+    public void setFileOpener(final ResourceAccessor resourceAccessor) {}
+
+    @Override
+    public ValidationErrors validate(final Database database) {
+        return new ValidationErrors();
+    }
+}
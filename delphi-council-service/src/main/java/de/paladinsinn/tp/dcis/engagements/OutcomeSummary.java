@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import de.kaiserpfalzedv.rpg.torg.model.core.SuccessState;
+import de.paladinsinn.tp.dcis.model.jpa.DispatchOutcome;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * OutcomeSummary -- The outcomes of all engagements of a dispatch.
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@Schema(description = "The outcomes of all engagements of a dispatch.")
+@Jacksonized
+@Builder
+@Value
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+public class OutcomeSummary {
+    @Schema(description = "ID of the dispatch.")
+    UUID dispatch;
+
+    @Schema(description = "Number of engagements of the dispatch.")
+    int engagements;
+
+    @Schema(description = "Number of engagements per outcome.")
+    @Singular
+    Map<SuccessState, Integer> outcomes;
+
+    @Schema(description = "Share of the engagements per outcome (0.0 to 1.0).")
+    @Singular
+    Map<SuccessState, Double> shares;
+
+    @Schema(description = "Time of the last change of the outcomes.")
+    OffsetDateTime modified;
+
+
+    /**
+     * @param dispatch The ID of the dispatch.
+     * @param rows The counters of the dispatch (all read by the same statement).
+     * @return The summary of the counters.
+     */
+    public static OutcomeSummary of(final UUID dispatch, final Collection<DispatchOutcome> rows) {
+        Map<SuccessState, Integer> outcomes = new EnumMap<>(SuccessState.class);
+        OffsetDateTime modified = null;
+        int total = 0;
+
+        for (DispatchOutcome row : rows) {
+            if (row.getEngagements() <= 0) {
+                continue;
+            }
+
+            outcomes.put(row.getObjectivesMet(), row.getEngagements());
+            total += row.getEngagements();
+
+            if (modified == null || row.getModified().isAfter(modified)) {
+                modified = row.getModified();
+            }
+        }
+
+        OutcomeSummaryBuilder result = OutcomeSummary.builder()
+                .dispatch(dispatch)
+                .engagements(total)
+                .outcomes(outcomes)
+                .modified(modified);
+
+        for (Map.Entry<SuccessState, Integer> outcome : outcomes.entrySet()) {
+            result.share(outcome.getKey(), (double) outcome.getValue() / total);
+        }
+
+        return result.build();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.export.EntityExporter;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import javax.annotation.security.PermitAll;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * VirtualThreadEngagementResource -- Serves the engagement API on virtual threads.
+ *
+ * <p>Replaces the {@link EngagementResource} when the deployment is built with {@code dcis.virtual-threads=true}. Every
+ * endpoint is overridden only to mark it with {@link RunOnVirtualThread}; RESTEasy Reactive reads the annotation
+ * from the method of the resource class, not from the inherited one.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-03-01
+ */
+@Schema(
+        name = "Engagements",
+        description = "Engagement Management Service"
+)
+@IfBuildProperty(name = "dcis.virtual-threads", stringValue = "true")
+@Singleton // the base class has no no-args constructor for a client proxy
+@Path("/api/v1/engagements")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@PermitAll
+public class VirtualThreadEngagementResource extends EngagementResource {
+    @Inject
+    public VirtualThreadEngagementResource(
+            final EngagementRepository repository,
+            final HttpErrorGenerator errorGenerator,
+            final EntityExporter exporter,
+            final EngagementOperatives operatives,
+            final EngagementWriter writer,
+            final DispatchOutcomes outcomes
+    ) {
+        super(repository, errorGenerator, exporter, operatives, writer, outcomes);
+    }
+
+
+    @Override
+    @RunOnVirtualThread
+    public Response export(final String format) {
+        return super.export(format);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public BasicList index(final UUID dispatch, final int start, final int size) {
+        return super.index(dispatch, start, size);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public List<EngagementDetails> details(final UUID dispatch, final int start, final int size) {
+        return super.details(dispatch, start, size);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public BasicList indexByGameMaster(final UUID dispatch, final String gameMaster, final int start, final int size) {
+        return super.indexByGameMaster(dispatch, gameMaster, start, size);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public BasicList indexByOperative(final UUID dispatch, final String operative, final int start, final int size) {
+        return super.indexByOperative(dispatch, operative, start, size);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public EngagementDetails retrieve(final UUID dispatch, final UUID engagement) {
+        return super.retrieve(dispatch, engagement);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public OutcomeSummary outcomes(final UUID dispatch) {
+        return super.outcomes(dispatch);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public EngagementDetails create(final UUID dispatch, final EngagementDetails data) {
+        return super.create(dispatch, data);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public EngagementDetails update(final UUID dispatch, final UUID engagement, final EngagementDetails data) {
+        return super.update(dispatch, engagement, data);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public void delete(final UUID dispatch, final UUID engagement) {
+        super.delete(dispatch, engagement);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public void addOperative(
+            final UUID dispatch,
+            final UUID engagement,
+            final UUID operative,
+            final OperativeOutcome outcome
+    ) {
+        super.addOperative(dispatch, engagement, operative, outcome);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public void removeOperative(final UUID dispatch, final UUID engagement, final UUID operative) {
+        super.removeOperative(dispatch, engagement, operative);
+    }
+}
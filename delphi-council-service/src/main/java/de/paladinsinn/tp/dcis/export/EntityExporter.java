@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.narayana.jta.RunOptions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * EntityExporter -- Streams entities directly from the database to the HTTP response.
+ *
+ * <p>The entities are read with a forward-only scroll and written to the response one by one. Every entity is
+ * detached after it has been written and the persistence context is cleared after every fetch, so the heap used does
+ * not depend on the number of exported entities. The export bypasses the second level cache so it does not evict the
+ * cached catalog.</p>
+ *
+ * <p>The response body is written after the resource method has returned. So the scroll is opened and closed within
+ * its own transaction and request context while the body is written.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-05
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class EntityExporter {
+    private static final int FETCH_SIZE = 100;
+    private static final char CSV_SEPARATOR = ';';
+    private static final char CSV_QUOTE = '"';
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper mapper;
+
+    private final HttpErrorGenerator errorGenerator;
+
+    @ConfigProperty(name = "dcis.export.timeout", defaultValue = "PT1H")
+    Duration timeout;
+
+
+    /**
+     * Creates the streaming response for the export. The data is read while the response is written.
+     *
+     * @param definition The data to export.
+     * @param formatParameter The format to export as given by the client ("ndjson" or "csv").
+     * @param <T> The entity type to export.
+     * @return The response streaming the data.
+     */
+    public <T> Response export(final ExportDefinition<T> definition, final String formatParameter) {
+        ExportFormat format = parseFormat(formatParameter);
+        StreamingOutput body = output -> writeInTransaction(definition, format, output);
+
+        return Response.ok(body, format.getMediaType())
+                .header("Content-Disposition",
+                        "attachment; filename=\"" + definition.getName() + "." + format.getExtension() + "\"")
+                .build();
+    }
+
+    private ExportFormat parseFormat(final String format) {
+        try {
+            return ExportFormat.fromParameter(format);
+        } catch (IllegalArgumentException e) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The export format is not supported.",
+                    Map.of("format", format)
+            );
+        }
+    }
+
+    private <T> void writeInTransaction(final ExportDefinition<T> definition, final ExportFormat format,
+                                        final OutputStream output) throws IOException {
+        ManagedContext requestContext = Arc.container().requestContext();
+        boolean activated = !requestContext.isActive();
+        if (activated) {
+            requestContext.activate();
+        }
+
+        try {
+            QuarkusTransaction.run(
+                    QuarkusTransaction.runOptions()
+                            .semantic(RunOptions.Semantic.REQUIRE_NEW)
+                            .timeout((int) timeout.toSeconds()),
+                    () -> {
+                        try {
+                            write(definition, format, output);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+            );
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (activated) {
+                requestContext.terminate();
+            }
+        }
+    }
+
+    private <T> void write(final ExportDefinition<T> definition, final ExportFormat format, final OutputStream output)
+            throws IOException {
+        Session session = entityManager.unwrap(Session.class);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(writer, definition.getColumns().keySet());
+        }
+
+        long count = 0;
+        try (ScrollableResults rows = session.createQuery(definition.getQuery(), definition.getType())
+                .setReadOnly(true)
+                .setCacheable(false)
+                .setCacheMode(CacheMode.IGNORE)
+                .setFetchSize(FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                T row = definition.getType().cast(rows.get(0));
+
+                if (format == ExportFormat.CSV) {
+                    writeCsvLine(writer, definition.getColumns().values().stream().map(c -> c.apply(row)).toList());
+                } else {
+                    writer.write(mapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+
+                session.detach(row);
+
+                if (++count % FETCH_SIZE == 0) {
+                    session.clear();
+                    writer.flush();
+                }
+            }
+        }
+
+        writer.flush();
+        log.info("Exported data. type={}, format={}, count={}", definition.getName(), format, count);
+    }
+
+    private void writeCsvLine(final Writer writer, final Collection<?> values) throws IOException {
+        Iterator<?> i = values.iterator();
+        while (i.hasNext()) {
+            Object value = i.next();
+
+            if (value != null) {
+                writeCsvValue(writer, value.toString());
+            }
+
+            if (i.hasNext()) {
+                writer.write(CSV_SEPARATOR);
+            }
+        }
+
+        writer.write('\n');
+    }
+
+    private void writeCsvValue(final Writer writer, final String value) throws IOException {
+        writer.write(CSV_QUOTE);
+        writer.write(value.replace("\"", "\"\""));
+        writer.write(CSV_QUOTE);
+    }
+}
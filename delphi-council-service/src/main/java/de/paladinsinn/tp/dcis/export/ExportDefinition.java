@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.export;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * ExportDefinition -- What to export for an entity type.
+ *
+ * @param <T> The entity type to export.
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-05
+ */
+@Builder
+@Value
+public class ExportDefinition<T> {
+    /** The base name of the exported file. */
+    String name;
+
+    /** The entity type to export. */
+    Class<T> type;
+
+    /** The HQL query selecting the entities in export order. To-one associations used by the columns should be fetched. */
+    String query;
+
+    /** The CSV columns (header name and value extractor) in export order. */
+    @Singular
+    Map<String, Function<T, Object>> columns;
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * ExportFormat -- The supported formats for bulk exports.
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-05
+ */
+@AllArgsConstructor
+@Getter
+public enum ExportFormat {
+    /** One JSON document per line. */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /** Semicolon separated values with a header line (the format of the liquibase data files). */
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+
+    /**
+     * @param format the format as given in the query parameter.
+     * @return the matching format.
+     * @throws IllegalArgumentException if the format is not supported.
+     */
+    public static ExportFormat fromParameter(final String format) {
+        return valueOf(format.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.history;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * AuditArchive -- The archived audit rows as gzip compressed NDJSON files, one directory per table.
+ *
+ * <p>Every call of {@link #append(String, Collection)} writes one new file per month, so a file never has to be
+ * rewritten. The file is written under a temporary name, synced to disk and then renamed into place, so a crash never
+ * leaves a truncated file behind and the read path never sees a file still being written. The caller may delete the
+ * rows after the method returned. If the deletion fails, the rows are archived again by the next run. The read path
+ * therefore ignores repeated rows (same ID and REV).</p>
+ *
+ * <p>There is no default directory: the archive is the only copy of the rows, so it has to be configured explicitly
+ * (on persistent storage). Without a directory nothing is archived.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class AuditArchive {
+    /** The column holding the commit time of the revision (epoch millis), joined from REVINFO. */
+    static final String TIMESTAMP = "REVTSTMP";
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final String SUFFIX = ".ndjson.gz";
+    private static final String TEMPORARY = ".tmp";
+    private static final TypeReference<Map<String, Object>> ROW = new TypeReference<>() {};
+
+    private final ObjectMapper mapper;
+
+    @ConfigProperty(name = "dcis.archive.directory")
+    Optional<String> directory;
+
+
+    /**
+     * @return True if the directory of the archive is configured.
+     */
+    public boolean isEnabled() {
+        return directory.isPresent();
+    }
+
+
+    /**
+     * Writes the rows into new files, one per month of their revisions.
+     *
+     * @param table The audit table the rows have been read from.
+     * @param rows The rows (column name to value). Every row needs the {@link #TIMESTAMP}.
+     * @throws IOException If the rows could not be written. Nothing may be deleted then.
+     */
+    public void append(final String table, final Collection<Map<String, Object>> rows) throws IOException {
+        if (!isEnabled()) {
+            throw new IllegalStateException("The directory of the audit archive is not configured.");
+        }
+
+        Map<YearMonth, List<Map<String, Object>>> months = new TreeMap<>();
+        for (Map<String, Object> row : rows) {
+            months.computeIfAbsent(month(row), k -> new ArrayList<>()).add(row);
+        }
+
+        Path dir = Path.of(directory.get(), table);
+        Files.createDirectories(dir);
+
+        // the names start with the month and sort in the order the files have been written.
+        String batch = String.format("%013d-%s", System.currentTimeMillis(), UUID.randomUUID());
+
+        for (Map.Entry<YearMonth, List<Map<String, Object>>> month : months.entrySet()) {
+            Path file = dir.resolve(MONTH.format(month.getKey()) + "." + batch + SUFFIX);
+            Path temporary = dir.resolve(file.getFileName() + TEMPORARY);
+
+            try {
+                write(temporary, month.getValue());
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+
+            log.debug("Archived audit rows. table={}, month={}, file={}, count={}",
+                    table, month.getKey(), file.getFileName(), month.getValue().size());
+        }
+
+        // the renames are only durable once the directory is synced.
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads the archived rows of an entity.
+     *
+     * @param table The audit table.
+     * @param id The ID of the entity as stored in the archive.
+     * @param from The first month to read. Null to start with the oldest month.
+     * @param to The last month to read. Null to end with the newest month.
+     * @return The archived rows of the entity in the order they have been archived.
+     * @throws IOException If the archive could not be read.
+     */
+    public List<Map<String, Object>> read(final String table, final String id, final YearMonth from, final YearMonth to)
+            throws IOException {
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (!isEnabled()) {
+            return result;
+        }
+
+        Path dir = Path.of(directory.get(), table);
+        if (!Files.isDirectory(dir)) {
+            return result;
+        }
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list
+                    .filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+                    .filter(f -> inRange(f, from, to))
+                    .sorted()
+                    .toList();
+        }
+
+        Set<String> seen = new HashSet<>();
+        for (Path file : files) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // cheap pre-check, only matching lines are parsed
+                    if (!line.contains(id)) {
+                        continue;
+                    }
+
+                    Map<String, Object> row = mapper.readValue(line, ROW);
+                    if (id.equals(row.get("ID")) && seen.add(row.get("ID") + "/" + row.get("REV"))) {
+                        result.add(row);
+                    }
+                }
+            }
+        }
+
+        log.debug("Read archived audit rows. table={}, id={}, from={}, to={}, files={}, count={}",
+                table, id, from, to, files.size(), result.size());
+        return result;
+    }
+
+
+    private void write(final Path file, final List<Map<String, Object>> rows) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file.toFile());
+             GZIPOutputStream gzip = new GZIPOutputStream(out);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8))) {
+
+            for (Map<String, Object> row : rows) {
+                writer.write(mapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+
+            writer.flush();
+            gzip.finish();
+            out.getFD().sync();
+        }
+    }
+
+    private YearMonth month(final Map<String, Object> row) {
+        return YearMonth.from(Instant.ofEpochMilli(((Number) row.get(TIMESTAMP)).longValue()).atOffset(ZoneOffset.UTC));
+    }
+
+    private boolean inRange(final Path file, final YearMonth from, final YearMonth to) {
+        String name = file.getFileName().toString();
+        YearMonth month = YearMonth.parse(name.substring(0, name.indexOf('.')), MONTH);
+
+        return (from == null || !month.isBefore(from)) && (to == null || !month.isAfter(to));
+    }
+}
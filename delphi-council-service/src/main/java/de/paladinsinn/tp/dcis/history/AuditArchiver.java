@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.history;
+
+import io.quarkus.scheduler.Scheduled;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * AuditArchiver -- Moves old audit rows from the Envers tables into the {@link AuditArchive}.
+ *
+ * <p>Rows of revisions older than the configured age are read in batches, appended to the archive and then deleted
+ * with one statement batch per read batch. The newest revision of every entity is always kept, so the state of an
+ * entity can still be read from the live audit table for any point in time after its last change. The job only
+ * works on the audit tables, the live tables are never touched. It does nothing as long as the directory of the
+ * archive is not configured.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class AuditArchiver {
+    /** The archived audit tables. All of them have the columns ID and REV. */
+    static final List<String> TABLES = List.of(
+            "DISPATCHES_AUD",
+            "DISPATCHREPORTS_AUD",
+            "DISPATCHREPORTS_OPERATIVES_AUD",
+            "MISSIONREPORTS_AUD",
+            "MISSIONREPORTS_OPERATIVES_AUD",
+            "OPERATIVES_AUD"
+    );
+
+    private static final String SELECT = "SELECT a.*, r.REVTSTMP FROM %1$s a JOIN REVINFO r ON r.REV = a.REV "
+            + "WHERE r.REVTSTMP < ? AND a.REV < (SELECT MAX(l.REV) FROM %1$s l WHERE l.ID = a.ID) "
+            + "ORDER BY a.REV, a.ID LIMIT ?";
+    private static final String DELETE = "DELETE FROM %s WHERE ID = ? AND REV = ?";
+
+    private final DataSource dataSource;
+
+    private final AuditArchive archive;
+
+    @ConfigProperty(name = "dcis.archive.max-age", defaultValue = "P365D")
+    Duration maxAge;
+
+    @ConfigProperty(name = "dcis.archive.batch-size", defaultValue = "500")
+    int batchSize;
+
+
+    @Scheduled(
+            identity = "audit-archiver",
+            cron = "{dcis.archive.cron}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP
+    )
+    void run() {
+        if (!archive.isEnabled()) {
+            log.warn("The audit tables are not archived, there is no directory configured (dcis.archive.directory).");
+            return;
+        }
+
+        long cutoff = Instant.now().minus(maxAge).toEpochMilli();
+
+        for (String table : TABLES) {
+            try {
+                int count = archive(table, cutoff);
+                log.info("Archived audit table. table={}, max-age={}, rows={}", table, maxAge, count);
+            } catch (SQLException | IOException e) {
+                log.error("Could not archive audit table. The remaining rows are archived by the next run. table="
+                        + table, e);
+            }
+        }
+    }
+
+    /**
+     * Archives the rows of the table older than the cutoff.
+     *
+     * @param table The audit table.
+     * @param cutoff The commit time (epoch millis) older rows are archived.
+     * @return The number of archived rows.
+     */
+    int archive(final String table, final long cutoff) throws SQLException, IOException {
+        int result = 0;
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            List<Map<String, Object>> rows;
+            do {
+                rows = read(connection, table, cutoff);
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                archive.append(table, rows);
+                delete(connection, table, rows);
+                connection.commit();
+
+                result += rows.size();
+            } while (rows.size() == batchSize);
+        }
+
+        return result;
+    }
+
+
+    private List<Map<String, Object>> read(final Connection connection, final String table, final long cutoff)
+            throws SQLException {
+        List<Map<String, Object>> result = new ArrayList<>(batchSize);
+
+        try (PreparedStatement statement = connection.prepareStatement(String.format(SELECT, table))) {
+            statement.setLong(1, cutoff);
+            statement.setInt(2, batchSize);
+
+            try (ResultSet rs = statement.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>(meta.getColumnCount());
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        row.put(meta.getColumnLabel(i).toUpperCase(), value(rs.getObject(i)));
+                    }
+                    result.add(row);
+                }
+            }
+        }
+
+        // the snapshot of the read must not stay open while the files are written.
+        connection.commit();
+        return result;
+    }
+
+    private void delete(final Connection connection, final String table, final List<Map<String, Object>> rows)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(String.format(DELETE, table))) {
+            for (Map<String, Object> row : rows) {
+                statement.setBytes(1, bytes(UUID.fromString((String) row.get("ID"))));
+                statement.setInt(2, ((Number) row.get("REV")).intValue());
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Converts the JDBC values into values readable in the archive: binary UUIDs become their string form, timestamps
+     * become ISO-8601 instants.
+     */
+    private Object value(final Object value) {
+        if (value instanceof byte[] raw && raw.length == 16) {
+            ByteBuffer buffer = ByteBuffer.wrap(raw);
+            return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        }
+        if (value instanceof UUID uuid) {
+            return uuid.toString();
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toInstant().toString();
+        }
+        if (value instanceof TemporalAccessor) {
+            return value.toString();
+        }
+
+        return value;
+    }
+
+    private byte[] bytes(final UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.history;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.OffsetDateTime;
+
+/**
+ * HistoryEntry -- The state of an entity as written by a single revision.
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@Schema(description = "The state of an entity as written by a revision.")
+@Builder
+@Value
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+public class HistoryEntry {
+    @Schema(description = "Number of the revision.")
+    int revision;
+
+    @Schema(description = "Time the revision has been committed.")
+    OffsetDateTime timestamp;
+
+    @Schema(description = "Kind of change: ADD, MOD or DEL.")
+    String change;
+
+    @Schema(description = "The entity as stored by the revision.")
+    Object data;
+
+    @Schema(description = "True if the revision has been read from the archive. The data is then the audit row as "
+            + "stored in the archive.", nullable = true)
+    Boolean archived;
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.history;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * HistoryPage -- A page of revisions of an entity in ascending order.
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@Schema(description = "A page of revisions of an entity.")
+@Builder
+@Value
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+public class HistoryPage {
+    @Singular
+    List<HistoryEntry> entries;
+
+    @Schema(description = "Cursor of the next page. Missing on the last page.", nullable = true)
+    String next;
+
+    @Schema(description = "True if revisions of the requested range have been moved into the archive. They are read "
+            + "via the archive of the entity. Only set on the first page.", nullable = true)
+    Boolean archived;
+}
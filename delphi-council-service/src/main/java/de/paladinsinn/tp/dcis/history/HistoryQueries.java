@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.history;
+
+import de.paladinsinn.tp.dcis.model.jpa.Operation;
+import de.paladinsinn.tp.dcis.model.jpa.Operative;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.envers.AuditReader;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.hibernate.envers.RevisionType;
+import org.hibernate.envers.exception.RevisionDoesNotExistException;
+import org.hibernate.envers.query.AuditEntity;
+import org.hibernate.envers.query.AuditQuery;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * HistoryQueries -- Reads former states of the audited entities.
+ *
+ * <p>The queries only read the audit tables and REVINFO, never the live tables. Every request costs a fixed number of
+ * statements: the state at a point in time needs two (the revision valid at that time via the index on REVTSTMP and
+ * the entity row via the (ID, REV) index of the audit table), a page of revisions needs one. A time range is turned
+ * into a range of revision numbers first (one lookup on the index on REVTSTMP per bound), so the pages only read the
+ * (ID, REV) index and never join REVINFO for filtering. Only entities without audited associations are served, so
+ * reading a revision never loads further entities.</p>
+ *
+ * <p>Old revisions may have been moved into the {@link AuditArchive}. The archiver always keeps the newest revision of
+ * an entity, so an entity whose oldest revision in the audit table is no ADD has archived revisions. The state at a
+ * time before its oldest revision in the audit table is then read from the archive.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class HistoryQueries {
+    /** The entity types with history by their name in the API. */
+    private static final Map<String, Class<?>> TYPES = Map.of(
+            "dispatches", Operation.class,
+            "operatives", Operative.class
+    );
+
+    /** The audit tables in the archive by entity type. */
+    private static final Map<Class<?>, String> ARCHIVED_TABLES = Map.of(
+            Operation.class, "DISPATCHES_AUD",
+            Operative.class, "OPERATIVES_AUD"
+    );
+
+    /** Statement timeout in seconds. */
+    private static final int QUERY_TIMEOUT = 10;
+
+    private final EntityManager entityManager;
+
+    private final AuditArchive archive;
+
+
+    /**
+     * @param name The name of the entity type in the API.
+     * @return The entity class or an empty optional if the type has no history.
+     */
+    public Optional<Class<?>> type(final String name) {
+        return Optional.ofNullable(TYPES.get(name));
+    }
+
+    /**
+     * Reads the state of the entity at the given time.
+     *
+     * @param type The entity class.
+     * @param id The ID of the entity.
+     * @param time The point in time.
+     * @return The last revision of the entity committed at or before the time. A deleted entity is returned with
+     *         change DEL. Empty if the entity did not exist yet.
+     * @throws IOException If the revision had to be read from the archive and the archive could not be read.
+     */
+    public Optional<HistoryEntry> at(final Class<?> type, final UUID id, final OffsetDateTime time)
+            throws IOException {
+        AuditReader reader = AuditReaderFactory.get(entityManager);
+
+        Number revision;
+        try {
+            revision = reader.getRevisionNumberForDate(Date.from(time.toInstant()));
+        } catch (RevisionDoesNotExistException e) {
+            return Optional.empty();
+        }
+
+        List<?> rows = revisions(reader, type, id)
+                .add(AuditEntity.revisionNumber().le(revision))
+                .addOrder(AuditEntity.revisionNumber().desc())
+                .setMaxResults(1)
+                .getResultList();
+
+        log.debug("history read. type={}, id={}, time={}, revision={}, found={}",
+                type.getSimpleName(), id, time, revision, !rows.isEmpty());
+        if (rows.isEmpty() && hasArchivedRevisions(type, id)) {
+            return archived(type, id, time);
+        }
+
+        return rows.stream().findFirst().map(row -> toEntry((Object[]) row));
+    }
+
+    /**
+     * @param type The entity class.
+     * @param id The ID of the entity.
+     * @return The oldest revision of the entity still stored in the audit table. Empty if the entity has no revision.
+     */
+    public Optional<HistoryEntry> oldest(final Class<?> type, final UUID id) {
+        return revisions(AuditReaderFactory.get(entityManager), type, id)
+                .addOrder(AuditEntity.revisionNumber().asc())
+                .setMaxResults(1)
+                .getResultList()
+                .stream()
+                .findFirst()
+                .map(row -> toEntry((Object[]) row));
+    }
+
+    /**
+     * @param entry The oldest revision of an entity in the audit table (see {@link #oldest(Class, UUID)}).
+     * @return True if older revisions of the entity have been moved into the archive.
+     */
+    public boolean isArchivedBefore(final HistoryEntry entry) {
+        return !RevisionType.ADD.name().equals(entry.getChange());
+    }
+
+    /**
+     * Turns a point in time into a bound of a revision range. The revision numbers and their commit times have the
+     * same order, both are taken when the revision is created.
+     *
+     * @param time The point in time.
+     * @return The newest revision committed before the time. Empty if there is none.
+     */
+    public Optional<Integer> revisionBefore(final OffsetDateTime time) {
+        try {
+            return Optional.of(AuditReaderFactory.get(entityManager)
+                    .getRevisionNumberForDate(Date.from(time.toInstant().minusMillis(1)))
+                    .intValue());
+        } catch (RevisionDoesNotExistException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reads the revisions of the entity in ascending order.
+     *
+     * @param type The entity class.
+     * @param id The ID of the entity.
+     * @param after The revision number the page starts after (exclusive, keyset). Null for no limit.
+     * @param upTo The revision number the page ends with (inclusive). Null for no limit.
+     * @param size The page size.
+     * @return The revisions of the page. One more than the page size if there are further revisions.
+     */
+    public List<HistoryEntry> revisions(
+            final Class<?> type,
+            final UUID id,
+            final Integer after,
+            final Integer upTo,
+            final int size
+    ) {
+        AuditQuery query = revisions(AuditReaderFactory.get(entityManager), type, id);
+
+        if (after != null) {
+            query.add(AuditEntity.revisionNumber().gt(after));
+        }
+        if (upTo != null) {
+            query.add(AuditEntity.revisionNumber().le(upTo));
+        }
+
+        List<?> rows = query
+                .addOrder(AuditEntity.revisionNumber().asc())
+                .setMaxResults(size + 1)
+                .getResultList();
+
+        log.debug("history read. type={}, id={}, after={}, upTo={}, count={}",
+                type.getSimpleName(), id, after, upTo, rows.size());
+        return rows.stream().map(row -> toEntry((Object[]) row)).toList();
+    }
+
+
+    private boolean hasArchivedRevisions(final Class<?> type, final UUID id) {
+        return oldest(type, id).map(this::isArchivedBefore).orElse(false);
+    }
+
+    private Optional<HistoryEntry> archived(final Class<?> type, final UUID id, final OffsetDateTime time)
+            throws IOException {
+        long until = time.toInstant().toEpochMilli();
+
+        Optional<HistoryEntry> result = archive.read(ARCHIVED_TABLES.get(type), id.toString(), null,
+                        YearMonth.from(time.atZoneSameInstant(ZoneOffset.UTC)))
+                .stream()
+                .filter(row -> ((Number) row.get(AuditArchive.TIMESTAMP)).longValue() <= until)
+                .max(Comparator.comparingLong(row -> ((Number) row.get("REV")).longValue()))
+                .map(this::toEntry);
+
+        log.debug("archived history read. type={}, id={}, time={}, found={}",
+                type.getSimpleName(), id, time, result.isPresent());
+        return result;
+    }
+
+    private AuditQuery revisions(final AuditReader reader, final Class<?> type, final UUID id) {
+        return reader.createQuery()
+                .forRevisionsOfEntity(type, false, true)
+                .add(AuditEntity.id().eq(id))
+                .setTimeout(QUERY_TIMEOUT);
+    }
+
+    private HistoryEntry toEntry(final Object[] row) {
+        DefaultRevisionEntity revision = (DefaultRevisionEntity) row[1];
+
+        return HistoryEntry.builder()
+                .revision(revision.getId())
+                .timestamp(revision.getRevisionDate().toInstant().atOffset(ZoneOffset.UTC))
+                .change(((RevisionType) row[2]).name())
+                .data(row[0])
+                .build();
+    }
+
+    private HistoryEntry toEntry(final Map<String, Object> row) {
+        return HistoryEntry.builder()
+                .revision(((Number) row.get("REV")).intValue())
+                .timestamp(Instant.ofEpochMilli(((Number) row.get(AuditArchive.TIMESTAMP)).longValue())
+                        .atOffset(ZoneOffset.UTC))
+                .change(RevisionType.fromRepresentation(((Number) row.get("REVTYPE")).byteValue()).name())
+                .data(row)
+                .archived(true)
+                .build();
+    }
+}
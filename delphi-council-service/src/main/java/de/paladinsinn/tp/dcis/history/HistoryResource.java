@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.history;
+
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.paging.KeysetCursor;
+import io.quarkus.arc.properties.UnlessBuildProperty;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+
+import javax.annotation.security.PermitAll;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Schema(
+        name = "History",
+        description = "Former states of dispatches, operatives and the archived audit data"
+)
+@UnlessBuildProperty(name = "dcis.virtual-threads", stringValue = "true", enableIfMissing = true)
+@ApplicationScoped
+@Path("/api/v1/history")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@PermitAll
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class HistoryResource {
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /** The audit tables of the archive by the type name in the API. */
+    private static final Map<String, String> ARCHIVED_TABLES = Map.of(
+            "dispatches", "DISPATCHES_AUD",
+            "engagements", "DISPATCHREPORTS_AUD",
+            "missions", "MISSIONREPORTS_AUD",
+            "operatives", "OPERATIVES_AUD"
+    );
+
+    private final HistoryQueries queries;
+
+    private final AuditArchive archive;
+
+    private final HttpErrorGenerator errorGenerator;
+
+
+    @Schema(
+            title = "Retrieve the state of an entity at a point in time",
+            description = "Retrieves the last revision of the entity committed at or before the given time. A revision "
+                    + "moved into the archive is read from the archive and marked as 'archived'."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the state of the entity."),
+            @APIResponse(responseCode = "400", description = "The time is invalid."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "The type has no history or the entity did not exist at that time."),
+            @APIResponse(responseCode = "500", description = "The archive could not be read.")
+    })
+    @GET
+    @Path("/{type}/{id}")
+    public HistoryEntry at(
+            @Schema(description = "Type of the entity: 'dispatches' or 'operatives'.", required = true)
+            @PathParam("type")
+            final String type,
+
+            @Schema(description = "ID of the entity.", required = true)
+            @PathParam("id")
+            final UUID id,
+
+            @Schema(description = "The point in time (ISO-8601 with offset).", required = true)
+            @QueryParam("at")
+            final String at
+    ) {
+        if (at == null) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The point in time has to be given.",
+                    Map.of("type", type, "id", id.toString())
+            );
+        }
+
+        Optional<HistoryEntry> result;
+        try {
+            result = queries.at(entityType(type), id, parseTime("at", at));
+        } catch (IOException e) {
+            log.error("Could not read the audit archive. type=" + type + ", id=" + id, e);
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.INTERNAL_SERVER_ERROR,
+                    "The archive could not be read.",
+                    Map.of("type", type, "id", id.toString())
+            );
+        }
+
+        return result
+                .orElseThrow(() -> errorGenerator.throwHttpProblem(
+                        Response.Status.NOT_FOUND,
+                        "The entity did not exist at this time.",
+                        Map.of("type", type, "id", id.toString(), "at", at)
+                ));
+    }
+
+    @Schema(
+            title = "Retrieve the revisions of an entity",
+            description = "Retrieves the revisions of the entity committed in the given time range in ascending order. "
+                    + "The pages are chained by the cursor delivered in 'next'. Revisions moved into the archive are "
+                    + "not contained, the first page is marked as 'archived' then."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns a page of revisions."),
+            @APIResponse(responseCode = "400", description = "The time range, the cursor or the page size is invalid."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "The type has no history.")
+    })
+    @GET
+    @Path("/{type}/{id}/revisions")
+    public HistoryPage revisions(
+            @Schema(description = "Type of the entity: 'dispatches' or 'operatives'.", required = true)
+            @PathParam("type")
+            final String type,
+
+            @Schema(description = "ID of the entity.", required = true)
+            @PathParam("id")
+            final UUID id,
+
+            @Schema(description = "Earliest commit time (inclusive, ISO-8601 with offset).", nullable = true)
+            @QueryParam("from")
+            final String from,
+
+            @Schema(description = "Latest commit time (exclusive, ISO-8601 with offset).", nullable = true)
+            @QueryParam("to")
+            final String to,
+
+            @Schema(description = "Opaque cursor of the previous page (as delivered in 'next').", nullable = true)
+            @QueryParam("cursor")
+            final String cursor,
+
+            @Schema(description = "Size of page to request.", nullable = true)
+            @QueryParam("size")
+            @DefaultValue("50")
+            final int size
+    ) {
+        Class<?> entity = entityType(type);
+
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The page size has to be between 1 and " + MAX_PAGE_SIZE + ".",
+                    Map.of("size", Integer.toString(size))
+            );
+        }
+
+        OffsetDateTime start = from != null ? parseTime("from", from) : null;
+        OffsetDateTime end = to != null ? parseTime("to", to) : null;
+        boolean first = cursor == null || cursor.isBlank();
+
+        // the time range is read as range of revision numbers, the following pages start after the cursor.
+        Integer after = first
+                ? (start != null ? queries.revisionBefore(start).orElse(null) : null)
+                : decodeCursor(cursor, id);
+        Integer upTo = end != null ? queries.revisionBefore(end).orElse(0) : null;
+
+        List<HistoryEntry> data = queries.revisions(entity, id, after, upTo, size);
+
+        HistoryPage.HistoryPageBuilder result = HistoryPage.builder()
+                .entries(data.size() > size ? data.subList(0, size) : data);
+        if (first && isArchivedBefore(entity, id, after, data)) {
+            result.archived(true);
+        }
+        if (data.size() > size) {
+            result.next(KeysetCursor.builder()
+                    .key(Integer.toString(data.get(size - 1).getRevision()))
+                    .id(id)
+                    .build()
+                    .encode());
+        }
+
+        return result.build();
+    }
+
+    @Schema(
+            title = "Retrieve the archived revisions of an entity",
+            description = "Retrieves the audit rows of the entity moved into the archive. The rows are returned as "
+                    + "stored in the audit table with the commit time of their revision (REVTSTMP, epoch millis)."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the archived audit rows."),
+            @APIResponse(responseCode = "400", description = "The month range is invalid."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "The type has no archive.")
+    })
+    @GET
+    @Path("/{type}/{id}/archive")
+    public List<Map<String, Object>> archived(
+            @Schema(description = "Type of the entity: 'dispatches', 'engagements', 'missions' or 'operatives'.", required = true)
+            @PathParam("type")
+            final String type,
+
+            @Schema(description = "ID of the entity.", required = true)
+            @PathParam("id")
+            final UUID id,
+
+            @Schema(description = "First month to read (yyyy-MM).", nullable = true)
+            @QueryParam("from")
+            final String from,
+
+            @Schema(description = "Last month to read (yyyy-MM).", nullable = true)
+            @QueryParam("to")
+            final String to
+    ) {
+        String table = ARCHIVED_TABLES.get(type);
+        if (table == null) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.NOT_FOUND,
+                    "There is no archive for this type.",
+                    Map.of("type", type)
+            );
+        }
+
+        try {
+            return archive.read(table, id.toString(), parseMonth("from", from), parseMonth("to", to));
+        } catch (IOException e) {
+            log.error("Could not read the audit archive. table=" + table + ", id=" + id, e);
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.INTERNAL_SERVER_ERROR,
+                    "The archive could not be read.",
+                    Map.of("type", type, "id", id.toString())
+            );
+        }
+    }
+
+
+    private Class<?> entityType(final String type) {
+        return queries.type(type)
+                .orElseThrow(() -> errorGenerator.throwHttpProblem(
+                        Response.Status.NOT_FOUND,
+                        "There is no history for this type.",
+                        Map.of("type", type)
+                ));
+    }
+
+    private OffsetDateTime parseTime(final String name, final String value) {
+        try {
+            return OffsetDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The time is invalid. Please use ISO-8601 with offset.",
+                    Map.of(name, value)
+            );
+        }
+    }
+
+    private YearMonth parseMonth(final String name, final String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+
+        try {
+            return YearMonth.parse(value);
+        } catch (DateTimeParseException e) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The month is invalid. Please use yyyy-MM.",
+                    Map.of(name, value)
+            );
+        }
+    }
+
+    /**
+     * Archived revisions are older than the oldest revision in the audit table. A page starting with an ADD contains
+     * the first revision of the entity. Without a lower bound the page starts with the oldest revision in the audit
+     * table. Only else the oldest revision has to be read.
+     */
+    private boolean isArchivedBefore(
+            final Class<?> entity,
+            final UUID id,
+            final Integer after,
+            final List<HistoryEntry> data
+    ) {
+        if (!data.isEmpty() && (after == null || !queries.isArchivedBefore(data.get(0)))) {
+            return queries.isArchivedBefore(data.get(0));
+        }
+
+        return queries.oldest(entity, id)
+                .filter(queries::isArchivedBefore)
+                .filter(oldest -> after == null || oldest.getRevision() > after)
+                .isPresent();
+    }
+
+    private Integer decodeCursor(final String cursor, final UUID id) {
+        try {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            if (!id.equals(position.getId())) {
+                throw new IllegalArgumentException("The cursor belongs to another entity.");
+            }
+
+            return Integer.valueOf(position.getKey());
+        } catch (IllegalArgumentException e) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The cursor is invalid.",
+                    Map.of("cursor", cursor)
+            );
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.history;
+
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import javax.annotation.security.PermitAll;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * VirtualThreadHistoryResource -- Serves the history API on virtual threads.
+ *
+ * <p>Replaces the {@link HistoryResource} when the deployment is built with {@code dcis.virtual-threads=true}. Every
+ * endpoint is overridden only to mark it with {@link RunOnVirtualThread}; RESTEasy Reactive reads the annotation
+ * from the method of the resource class, not from the inherited one.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-03-01
+ */
+@Schema(
+        name = "History",
+        description = "Former states of dispatches, operatives and the archived audit data"
+)
+@IfBuildProperty(name = "dcis.virtual-threads", stringValue = "true")
+@Singleton // the base class has no no-args constructor for a client proxy
+@Path("/api/v1/history")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@PermitAll
+public class VirtualThreadHistoryResource extends HistoryResource {
+    @Inject
+    public VirtualThreadHistoryResource(
+            final HistoryQueries queries,
+            final AuditArchive archive,
+            final HttpErrorGenerator errorGenerator
+    ) {
+        super(queries, archive, errorGenerator);
+    }
+
+
+    @Override
+    @RunOnVirtualThread
+    public HistoryEntry at(final String type, final UUID id, final String at) {
+        return super.at(type, id, at);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public HistoryPage revisions(
+            final String type,
+            final UUID id,
+            final String from,
+            final String to,
+            final String cursor,
+            final int size
+    ) {
+        return super.revisions(type, id, from, to, cursor, size);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public List<Map<String, Object>> archived(final String type, final UUID id, final String from, final String to) {
+        return super.archived(type, id, from, to);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.missions;
+
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.model.jpa.LedgerEntry;
+import de.paladinsinn.tp.dcis.model.jpa.Mission;
+import de.paladinsinn.tp.dcis.model.jpa.Operative;
+import de.paladinsinn.tp.dcis.model.jpa.OperativeMissionReport;
+import de.paladinsinn.tp.dcis.operatives.OperativeLedger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceException;
+import javax.transaction.Transactional;
+import javax.ws.rs.core.Response;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * MissionOperatives -- Adds operatives to missions and removes them again.
+ *
+ * <p>The xp and payment of the mission are booked to the ledger of the operative in the same transaction, so the
+ * report and the totals of the operative are always consistent.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class MissionOperatives {
+    private final OperativeLedger ledger;
+
+    private final EntityManager entityManager;
+
+    private final HttpErrorGenerator errorGenerator;
+
+
+    /**
+     * Adds the operative to the mission and books the mission for the operative.
+     *
+     * @param mission The ID of the mission.
+     * @param operative The ID of the operative.
+     * @param notes The notes of the operative.
+     * @return The report of the operative.
+     */
+    @Transactional
+    public OperativeMissionReport add(final UUID mission, final UUID operative, final MissionNotes notes) {
+        Mission data = entityManager.find(Mission.class, mission);
+        if (data == null) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.NOT_FOUND,
+                    "There is no mission with this id.",
+                    Map.of("mission", mission.toString())
+            );
+        }
+
+        // the operative is locked before the check, so a concurrent add of the same operative waits and finds the
+        // report of the first one (the ledger locks the operative the same way).
+        Operative member = entityManager.find(Operative.class, operative, LockModeType.PESSIMISTIC_WRITE);
+        if (member == null) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.NOT_FOUND,
+                    "There is no operative with this id.",
+                    Map.of("operative", operative.toString())
+            );
+        }
+
+        if (load(mission, operative) != null) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.CONFLICT,
+                    "The operative already took part in this mission.",
+                    Map.of("mission", mission.toString(), "operative", operative.toString())
+            );
+        }
+
+        OperativeMissionReport result = OperativeMissionReport.builder()
+                .id(UUID.randomUUID())
+                .mission(data)
+                .operative(member)
+                .notes(notes != null ? notes.getNotes() : null)
+                .build();
+        store(result, mission, operative);
+
+        ledger.book(result);
+
+        log.info("Added operative to mission. mission={}, operative={}", mission, operative);
+        return result;
+    }
+
+    /**
+     * Removes the operative from the mission and reverses the booking of the mission.
+     *
+     * @param mission The ID of the mission.
+     * @param operative The ID of the operative.
+     */
+    @Transactional
+    public void remove(final UUID mission, final UUID operative) {
+        OperativeMissionReport report = load(mission, operative);
+        if (report == null) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.NOT_FOUND,
+                    "The operative did not take part in this mission.",
+                    Map.of("mission", mission.toString(), "operative", operative.toString())
+            );
+        }
+
+        ledger.reverse(LedgerEntry.Source.MISSION, report.getId());
+        entityManager.remove(report);
+
+        log.info("Removed operative from mission. mission={}, operative={}", mission, operative);
+    }
+
+
+    /**
+     * Stores the report. A second report of the operative is rejected by the unique constraint of the table, even
+     * when it is written without the lock on the operative.
+     */
+    private void store(final OperativeMissionReport report, final UUID mission, final UUID operative) {
+        try {
+            entityManager.persist(report);
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            if (!isDuplicate(e)) {
+                throw e;
+            }
+
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.CONFLICT,
+                    "The operative already took part in this mission.",
+                    Map.of("mission", mission.toString(), "operative", operative.toString())
+            );
+        }
+    }
+
+    private static boolean isDuplicate(final PersistenceException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+
+        String constraint = ((ConstraintViolationException) e.getCause()).getConstraintName();
+        return constraint != null && constraint.toUpperCase(Locale.ROOT).contains("MISSIONREPORTS_OPERATIVES_UK");
+    }
+
+    private OperativeMissionReport load(final UUID mission, final UUID operative) {
+        return entityManager.createQuery(
+                        "SELECT r FROM OperativeMissionReport r JOIN FETCH r.mission "
+                                + "WHERE r.mission.id = :mission AND r.operative.id = :operative",
+                        OperativeMissionReport.class
+                )
+                .setParameter("mission", mission)
+                .setParameter("operative", operative)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.missions;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+
+import javax.annotation.security.PermitAll;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import java.util.UUID;
+
+@Schema(
+        name = "Missions",
+        description = "Mission Management Service"
+)
+@ApplicationScoped
+@Path("/api/v1/missions")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@PermitAll
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class MissionResource {
+    private final MissionOperatives operatives;
+
+
+    @Schema(
+            title = "Add an operative to a mission",
+            description = "Adds the operative to the mission and books xp and payment of the mission for the operative."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "204", description = "The operative has been added."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "There is no such mission or operative."),
+            @APIResponse(responseCode = "409", description = "The operative already took part in the mission.")
+    })
+    @PUT
+    @Path("/{mission}/operative/{operative}")
+    @RunOnVirtualThread
+    public void addOperative(
+            @Schema(description = "ID of the mission.", required = true)
+            @PathParam("mission")
+            final UUID mission,
+
+            @Schema(description = "ID of the operative.", required = true)
+            @PathParam("operative")
+            final UUID operative,
+
+            final MissionNotes notes
+    ) {
+        operatives.add(mission, operative, notes);
+    }
+
+    @Schema(
+            title = "Remove an operative from a mission",
+            description = "Removes the operative from the mission and reverses the booking of the mission."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "204", description = "The operative has been removed."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "The operative did not take part in the mission.")
+    })
+    @DELETE
+    @Path("/{mission}/operative/{operative}")
+    @RunOnVirtualThread
+    public void removeOperative(
+            @Schema(description = "ID of the mission.", required = true)
+            @PathParam("mission")
+            final UUID mission,
+
+            @Schema(description = "ID of the operative.", required = true)
+            @PathParam("operative")
+            final UUID operative
+    ) {
+        operatives.remove(mission, operative);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2022-2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.model.jpa;
+
+import de.kaiserpfalzedv.rpg.torg.model.core.SuccessState;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * DispatchOutcome -- The number of engagements of a dispatch with the same outcome.
+ *
+ * <p>The counters are only changed by relative updates in the transaction writing the engagement (see
+ * {@link de.paladinsinn.tp.dcis.engagements.DispatchOutcomes}).</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@RegisterForReflection
+@Entity
+@Table(name = "DISPATCH_OUTCOMES")
+@IdClass(DispatchOutcome.Key.class)
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+public class DispatchOutcome {
+    /** The primary key: dispatch and outcome. */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID dispatch;
+        private SuccessState objectivesMet;
+    }
+
+    @Id
+    @Column(name = "DISPATCH_ID", nullable = false, updatable = false)
+    private UUID dispatch;
+
+    @Id
+    @Column(name = "OBJECTIVES_MET", length = 20, nullable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private SuccessState objectivesMet;
+
+    @Column(name = "ENGAGEMENTS", nullable = false)
+    private int engagements;
+
+    @Column(name = "MODIFIED", nullable = false)
+    private OffsetDateTime modified;
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2022-2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.model.jpa;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.*;
+import lombok.extern.jackson.Jacksonized;
+import org.hibernate.envers.Audited;
+
+import javax.persistence.*;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * LedgerEntry -- A single booking of xp and money for an operative.
+ *
+ * <p>The ledger is append-only. Entries are never changed, a removed report is compensated by a reversal entry with
+ * the negated amounts. The entries are audited only to give every booking a revision, so the change feed reports it as
+ * change of the operative.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@RegisterForReflection
+@Entity
+@Audited
+@Table(
+        name = "OPERATIVE_LEDGER",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "OPERATIVE_LEDGER_REPORT_UK", columnNames = {"SOURCE", "REPORT_ID", "KIND"})
+        }
+)
+@Jacksonized
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+public class LedgerEntry {
+    /** The report type causing the booking. */
+    public enum Source {
+        DISPATCH,
+        MISSION
+    }
+
+    /** Booking of a report or reversal of a former booking. */
+    public enum Kind {
+        BOOKING,
+        REVERSAL
+    }
+
+    @Id
+    @Column(name = "ID", nullable = false, updatable = false)
+    private UUID id;
+
+    @Column(name = "OPERATIVE_ID", nullable = false, updatable = false)
+    private UUID operative;
+
+    @Column(name = "SOURCE", length = 20, nullable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private Source source;
+
+    /** The ID of the operative's dispatch or mission report. */
+    @Column(name = "REPORT_ID", nullable = false, updatable = false)
+    private UUID report;
+
+    @Column(name = "KIND", length = 20, nullable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private Kind kind;
+
+    @Column(name = "XP", nullable = false, updatable = false)
+    private int xp;
+
+    @Column(name = "MONEY", nullable = false, updatable = false)
+    private int money;
+
+    @Column(name = "BOOKED", nullable = false, updatable = false)
+    private OffsetDateTime booked;
+}
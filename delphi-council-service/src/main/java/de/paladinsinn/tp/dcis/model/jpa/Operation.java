@@ -17,6 +17,7 @@ import de.paladinsinn.tp.dcis.common.Language;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.hibernate.envers.Audited;
 
@@ -24,6 +25,7 @@ import javax.persistence.*;
 
 @RegisterForReflection
 @Entity
+@Cacheable
 @Audited
 @Table(
         name = "DISPATCHES",
@@ -33,6 +35,7 @@ import javax.persistence.*;
                 @UniqueConstraint(name = "DISPATCHES_TITLE_UK", columnNames = "TITLE")
         }
 )
+@Jacksonized
 @SuperBuilder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
@@ -28,6 +28,7 @@ import java.time.OffsetDateTime;
 
 @RegisterForReflection
 @Entity
+@Cacheable
 @Table(
         name = "OPERATIVES",
         uniqueConstraints = {
@@ -35,6 +36,10 @@ import java.time.OffsetDateTime;
                 @UniqueConstraint(name = "OPERATIVES_NAME_UK", columnNames = {"LAST_NAME", "FIRST_NAME"})
         }
 )
+@SecondaryTable(
+        name = "OPERATIVE_TOTALS",
+        pkJoinColumns = @PrimaryKeyJoinColumn(name = "OPERATIVE_ID")
+)
 @Jacksonized
 @SuperBuilder(toBuilder = true)
 @AllArgsConstructor
@@ -74,11 +79,9 @@ public class Operative extends AbstractRevisionedJPAEntity implements de.paladin
     @Size(min=1, max=50)
     private Cosm cosm;
 
-    @Column(name = "CLEARANCE", length = 50, nullable = false)
+    /** Derived from the xp. Written once with the opening balance, then only by the ledger. */
+    @Column(name = "CLEARANCE", table = "OPERATIVE_TOTALS", length = 20, nullable = false, updatable = false)
     @Enumerated(EnumType.STRING)
-    @Audited
-    @NotNull
-    @Size(min=1, max=50)
     private Clearance clearance;
 
     @Column(name = "AVATAR")
@@ -89,13 +92,13 @@ public class Operative extends AbstractRevisionedJPAEntity implements de.paladin
     @Size(min = 0, max = 255)
     private String token;
 
-    @Column(name = "XP", nullable = false)
-    @Audited
+    /** The opening balance on creation, then the totals booked by the ledger. */
+    @Column(name = "XP", table = "OPERATIVE_TOTALS", nullable = false, updatable = false)
     @Min(0)
     private int xp;
 
-    @Column(name = "MONEY", nullable = false)
-    @Audited
+    /** The opening balance on creation, then the totals booked by the ledger. */
+    @Column(name = "MONEY", table = "OPERATIVE_TOTALS", nullable = false, updatable = false)
     private int money;
 
     @Audited
@@ -110,8 +113,8 @@ public class Operative extends AbstractRevisionedJPAEntity implements de.paladin
     private OffsetDateTime deleted;
 
 
-    @PreUpdate
-    public void preUpdate() {
+    @PrePersist
+    public void prePersist() {
         clearance = Clearance.valueOf(xp);
     }
 
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2022-2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.model.jpa;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import de.kaiserpfalzedv.rpg.torg.model.actors.Clearance;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.*;
+import lombok.extern.jackson.Jacksonized;
+
+import javax.persistence.*;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * OperativeTotals -- The materialized sum of the opening balance and all ledger entries of an operative.
+ *
+ * <p>The row is only changed by relative updates in the transaction writing the ledger entry (see
+ * {@link de.paladinsinn.tp.dcis.operatives.OperativeLedger}), so reading the totals never aggregates the ledger.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@RegisterForReflection
+@Entity
+@Table(name = "OPERATIVE_TOTALS")
+@Jacksonized
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+@JsonInclude(JsonInclude.Include.NON_ABSENT)
+public class OperativeTotals {
+    @Id
+    @Column(name = "OPERATIVE_ID", nullable = false, updatable = false)
+    private UUID operative;
+
+    @Column(name = "XP", nullable = false)
+    private int xp;
+
+    @Column(name = "MONEY", nullable = false)
+    private int money;
+
+    @Column(name = "CLEARANCE", length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Clearance clearance;
+
+    /** Number of ledger entries booked into the totals. */
+    @Column(name = "ENTRIES", nullable = false)
+    private int entries;
+
+    @Column(name = "MODIFIED", nullable = false)
+    private OffsetDateTime modified;
+}
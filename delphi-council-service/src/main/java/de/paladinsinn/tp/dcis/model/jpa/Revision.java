@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.model.jpa;
+
+import de.paladinsinn.tp.dcis.changes.CommitOrder;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.hibernate.envers.RevisionEntity;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+/**
+ * Revision -- The Envers revision (REVINFO) with the commit order of its transaction.
+ *
+ * <p>The revision is the default one of Envers. Only the listener is added, it records the position of the revision
+ * in the commit order (see {@link CommitOrder}).</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@RegisterForReflection
+@Entity
+@Table(name = "REVINFO")
+@RevisionEntity(CommitOrder.Listener.class)
+public class Revision extends DefaultRevisionEntity {}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.model.jpa;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.model.TypeContributions;
+import org.hibernate.boot.model.TypeContributor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.UUIDBinaryType;
+
+import java.util.UUID;
+
+/**
+ * UuidTypes -- Maps the UUIDs of the data model to 16 byte binary columns.
+ *
+ * <p>The ID is inherited from the kp-commons base entities and asks for the type "uuid-char". A subclass can't change
+ * the type of an inherited attribute, so both the default type of {@link UUID} and "uuid-char" are contributed as
+ * binary type. The foreign keys and the audit tables take the type of the referenced ID. The mapping is checked by
+ * the UuidTypesTest.</p>
+ *
+ * <p>The contributor is registered as Java service in META-INF/services.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-03-01
+ */
+@Slf4j
+public class UuidTypes implements TypeContributor {
+    public static final String UUID_CHAR = "uuid-char";
+
+    @SuppressWarnings("deprecation") // the only way to register a basic type for an existing type name in 5.6
+    @Override
+    public void contribute(final TypeContributions typeContributions, final ServiceRegistry serviceRegistry) {
+        typeContributions.contributeType(UUIDBinaryType.INSTANCE, UUID.class.getName(), UUID_CHAR);
+
+        log.debug("Registered binary UUID type. keys=[{}, {}]", UUID.class.getName(), UUID_CHAR);
+    }
+}
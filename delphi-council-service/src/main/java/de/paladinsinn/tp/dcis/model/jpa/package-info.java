@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+/**
+ * This package contains the JPA implementation of the data model.
+ *
+ * <p>All UUIDs (the IDs inherited from the kp-commons base entities, the foreign keys and the audit tables) are mapped
+ * to 16 byte binary columns. The mapping is registered by the {@link de.paladinsinn.tp.dcis.model.jpa.UuidTypes}
+ * contributor.</p>
+ */
+package de.paladinsinn.tp.dcis.model.jpa;
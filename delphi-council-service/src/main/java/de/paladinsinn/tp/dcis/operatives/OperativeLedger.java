@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.operatives;
+
+import de.kaiserpfalzedv.rpg.torg.model.actors.Clearance;
+import de.paladinsinn.tp.dcis.model.jpa.LedgerEntry;
+import de.paladinsinn.tp.dcis.model.jpa.Operative;
+import de.paladinsinn.tp.dcis.model.jpa.OperativeDispatchReport;
+import de.paladinsinn.tp.dcis.model.jpa.OperativeMissionReport;
+import de.paladinsinn.tp.dcis.model.jpa.OperativeTotals;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.transaction.Transactional;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * OperativeLedger -- Books the xp and money of the operative reports and maintains the totals of the operatives.
+ *
+ * <p>Every booking appends a {@link LedgerEntry} and adds its amounts to the {@link OperativeTotals} of the operative
+ * with a relative update ({@code XP = XP + ?}) in the transaction of the caller. Every booking locks the operative
+ * until the transaction ends, so concurrent bookings for the same operative are serialized by the database and none
+ * of them gets lost. The clearance is derived from the new xp while the row is still locked.</p>
+ *
+ * <p>The totals are the only balance of an operative: the {@link Operative} reads its xp, money and clearance from
+ * them. The row is created with the operative (the opening balance), afterwards only the ledger changes it.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class OperativeLedger {
+    private final EntityManager entityManager;
+
+
+    /**
+     * Books the xp and payment of the dispatch for the operative of the report.
+     *
+     * @param report The (already persisted) report of the operative.
+     * @return The new ledger entry.
+     */
+    @Transactional
+    public LedgerEntry book(final OperativeDispatchReport report) {
+        return append(
+                report.getOperative().getId(),
+                LedgerEntry.Source.DISPATCH,
+                report.getId(),
+                LedgerEntry.Kind.BOOKING,
+                report.getReport().getDispatch().getXp(),
+                report.getReport().getDispatch().getPayment()
+        );
+    }
+
+    /**
+     * Books the xp and payment of the mission for the operative of the report.
+     *
+     * @param report The (already persisted) report of the operative.
+     * @return The new ledger entry.
+     */
+    @Transactional
+    public LedgerEntry book(final OperativeMissionReport report) {
+        return append(
+                report.getOperative().getId(),
+                LedgerEntry.Source.MISSION,
+                report.getId(),
+                LedgerEntry.Kind.BOOKING,
+                report.getMission().getXp(),
+                report.getMission().getPayment()
+        );
+    }
+
+    /**
+     * Reverses the booking of a report by appending an entry with the negated amounts.
+     *
+     * @param source The type of the report.
+     * @param report The ID of the operative's report.
+     * @return The reversal entry or an empty optional if the report has never been booked.
+     */
+    @Transactional
+    public Optional<LedgerEntry> reverse(final LedgerEntry.Source source, final UUID report) {
+        return entityManager.createQuery(
+                        "SELECT l FROM LedgerEntry l WHERE l.source = :source AND l.report = :report AND l.kind = :kind",
+                        LedgerEntry.class
+                )
+                .setParameter("source", source)
+                .setParameter("report", report)
+                .setParameter("kind", LedgerEntry.Kind.BOOKING)
+                .getResultStream()
+                .findFirst()
+                .map(booking -> append(
+                        booking.getOperative(),
+                        source,
+                        report,
+                        LedgerEntry.Kind.REVERSAL,
+                        -booking.getXp(),
+                        -booking.getMoney()
+                ));
+    }
+
+    /**
+     * @param operative The ID of the operative.
+     * @return The totals of the operative. Reads a single row.
+     */
+    public Optional<OperativeTotals> totals(final UUID operative) {
+        return Optional.ofNullable(entityManager.find(OperativeTotals.class, operative));
+    }
+
+    /**
+     * @param operative The ID of the operative.
+     * @param start The index of the first entry to return.
+     * @param size The maximum number of entries to return.
+     * @return The ledger entries of the operative, newest first.
+     */
+    public List<LedgerEntry> entries(final UUID operative, final int start, final int size) {
+        return entityManager.createQuery(
+                        "SELECT l FROM LedgerEntry l WHERE l.operative = :operative ORDER BY l.booked DESC, l.id DESC",
+                        LedgerEntry.class
+                )
+                .setParameter("operative", operative)
+                .setFirstResult(start)
+                .setMaxResults(size)
+                .getResultList();
+    }
+
+
+    private LedgerEntry append(
+            final UUID operative,
+            final LedgerEntry.Source source,
+            final UUID report,
+            final LedgerEntry.Kind kind,
+            final int xp,
+            final int money
+    ) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+
+        LedgerEntry result = LedgerEntry.builder()
+                .id(UUID.randomUUID())
+                .operative(operative)
+                .source(source)
+                .report(report)
+                .kind(kind)
+                .xp(xp)
+                .money(money)
+                .booked(now)
+                .build();
+        entityManager.persist(result);
+
+        addToTotals(operative, xp, money, now);
+
+        log.info("Booked ledger entry. operative={}, source={}, report={}, kind={}, xp={}, money={}",
+                operative, source, report, kind, xp, money);
+        return result;
+    }
+
+    private void addToTotals(final UUID operative, final int xp, final int money, final OffsetDateTime now) {
+        // the lock on the operative (and its totals, they are mapped as its secondary table) is taken first, so the
+        // bookings of an operative are serialized before they touch the totals.
+        if (entityManager.find(Operative.class, operative, LockModeType.PESSIMISTIC_WRITE) == null) {
+            throw new IllegalArgumentException("There is no operative with this id. operative=" + operative);
+        }
+
+        if (updateTotals(operative, xp, money, now) == 0) {
+            throw new IllegalStateException("The operative has no totals. operative=" + operative);
+        }
+
+        // the row is locked by the update above, so the xp read is the one the clearance belongs to.
+        int total = entityManager.createQuery(
+                        "SELECT t.xp FROM OperativeTotals t WHERE t.operative = :operative", Integer.class)
+                .setParameter("operative", operative)
+                .getSingleResult();
+
+        entityManager.createQuery(
+                        "UPDATE OperativeTotals t SET t.clearance = :clearance "
+                                + "WHERE t.operative = :operative AND t.clearance <> :clearance")
+                .setParameter("clearance", Clearance.valueOf(total))
+                .setParameter("operative", operative)
+                .executeUpdate();
+    }
+
+    private int updateTotals(final UUID operative, final int xp, final int money, final OffsetDateTime now) {
+        return entityManager.createQuery(
+                        "UPDATE OperativeTotals t SET t.xp = t.xp + :xp, t.money = t.money + :money, "
+                                + "t.entries = t.entries + 1, t.modified = :now WHERE t.operative = :operative")
+                .setParameter("xp", xp)
+                .setParameter("money", money)
+                .setParameter("now", now)
+                .setParameter("operative", operative)
+                .executeUpdate();
+    }
+}
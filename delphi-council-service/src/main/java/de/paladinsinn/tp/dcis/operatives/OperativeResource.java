@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.operatives;
+
+import de.kaiserpfalzedv.commons.core.api.Paging;
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.export.EntityExporter;
+import de.paladinsinn.tp.dcis.export.ExportDefinition;
+import de.paladinsinn.tp.dcis.model.jpa.LedgerEntry;
+import de.paladinsinn.tp.dcis.model.jpa.Operative;
+import de.paladinsinn.tp.dcis.model.jpa.OperativeTotals;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import de.paladinsinn.tp.dcis.model.lists.BasicList;
+import de.paladinsinn.tp.dcis.paging.IdSelection;
+import de.paladinsinn.tp.dcis.paging.KeysetCursor;
+import io.quarkus.arc.properties.UnlessBuildProperty;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import javax.annotation.security.PermitAll;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Schema(
+        name = "Operatives",
+        description = "Operative Management Service"
+)
+@UnlessBuildProperty(name = "dcis.virtual-threads", stringValue = "true", enableIfMissing = true)
+@ApplicationScoped
+@Path("/api/v1/operatives")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@PermitAll
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class OperativeResource {
+    private static final String KIND = "operative";
+    private static final int DEFAULT_INT_PARAM = -1;
+    private static final String DEFAULT_INT_PARAM_STRING = "-1";
+
+    /** Maximum number of ledger entries returned with one request. */
+    private static final int MAX_LEDGER_PAGE = 500;
+
+    private static final ExportDefinition<Operative> EXPORT = ExportDefinition.<Operative>builder()
+            .name("operatives")
+            .type(Operative.class)
+            .query("SELECT o FROM Operative o ORDER BY o.code, o.id")
+            .column("ID", Operative::getId)
+            .column("VERSION", Operative::getVersion)
+            .column("CODE", Operative::getCode)
+            .column("NAME", Operative::getName)
+            .column("LAST_NAME", Operative::getLastName)
+            .column("FIRST_NAME", Operative::getFirstName)
+            .column("COSM", Operative::getCosm)
+            .column("CLEARANCE", Operative::getClearance)
+            .column("XP", Operative::getXp)
+            .column("MONEY", Operative::getMoney)
+            .column("PLAYER", Operative::getPlayer)
+            .column("DELETED", Operative::getDeleted)
+            .build();
+
+    private final EntityExporter exporter;
+
+    private final OperativeRepository repository;
+
+    private final OperativeLedger ledger;
+
+    private final HttpErrorGenerator errorGenerator;
+
+
+    @Schema(
+            title = "Retrieve all operatives",
+            description = "Retrieves all operatives (or a subpage if requested). With 'id' the operatives with these "
+                    + "IDs are returned instead."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns a list of operatives"),
+            @APIResponse(responseCode = "304", description = "The list did not change since the given ETag."),
+            @APIResponse(responseCode = "400", description = "Invalid paging parameters or too many IDs requested."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in")
+    })
+    @GET
+    public Response index(
+            @Schema(description = "Start index of the list in total set of operatives.", nullable = true)
+            @QueryParam("start")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            int start,
+
+            @Schema(description = "Size of page to request.", nullable = true)
+            @QueryParam("size")
+            @DefaultValue(DEFAULT_INT_PARAM_STRING)
+            int size,
+
+            @Schema(description = "Opaque cursor of the previous page (as delivered in 'next'). Only used without 'start'.",
+                    nullable = true)
+            @QueryParam("cursor")
+            String cursor,
+
+            @Schema(description = "IDs of the operatives to retrieve (repeatable, at most 100).", nullable = true)
+            @QueryParam("id")
+            List<UUID> ids,
+
+            @Context
+            Request request
+    ) {
+        if (ids != null && !ids.isEmpty()) {
+            return Response.ok(index(IdSelection.of(ids, errorGenerator))).build();
+        }
+
+        EntityTag tag = repository.findCollectionStamp().toEntityTag();
+
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            log.debug("operatives not modified. etag={}", tag);
+            return notModified.tag(tag).build();
+        }
+
+        return Response.ok(index(start, size, cursor)).tag(tag).build();
+    }
+
+    private List<Operative> index(final Set<UUID> ids) {
+        List<Operative> result = IdSelection.inRequestOrder(ids, repository.findAllById(ids), Operative::getId);
+
+        log.debug("operatives loaded by id. requested={}, found={}", ids.size(), result.size());
+        return result;
+    }
+
+    private BasicList index(final int start, final int size, final String cursor) {
+        if (start == DEFAULT_INT_PARAM && size == DEFAULT_INT_PARAM) {
+            return index();
+        }
+
+        if (start == DEFAULT_INT_PARAM) {
+            return index(cursor, size);
+        }
+
+        checkPageSize(size);
+        if (start < 0 || start % size != 0) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The start index must not be negative and has to be a multiple of the page size.",
+                    Map.of("start", Integer.toString(start), "size", Integer.toString(size))
+            );
+        }
+
+        Page<BasicData> raw = repository.findAllBasicData(PageRequest.of(start / size, size));
+        log.debug("operatives loaded. count={}, total={}", raw.getNumberOfElements(), raw.getTotalElements());
+
+        return BasicList.builder()
+                .kind(KIND)
+                .page(Paging.builder()
+                        .start(start)
+                        .count(raw.getNumberOfElements())
+                        .size(size)
+                        .total(raw.getTotalElements())
+                        .build())
+                .data(raw.getContent())
+                .build();
+    }
+
+    /**
+     * Keyset paging over (CODE, ID) like the dispatch list.
+     *
+     * @param cursor The cursor of the previous page or null for the first page.
+     * @param size The size of the page.
+     * @return The page following the cursor.
+     */
+    private BasicList index(final String cursor, final int size) {
+        checkPageSize(size);
+
+        List<BasicData> raw;
+        if (cursor == null || cursor.isBlank()) {
+            raw = repository.findFirstKeysetPage(PageRequest.of(0, size));
+        } else {
+            KeysetCursor position = decodeCursor(cursor);
+            raw = repository.findKeysetPageAfter(position.getKey(), position.getId(), PageRequest.of(0, size));
+        }
+
+        String next = null;
+        if (raw.size() == size) {
+            BasicData last = raw.get(raw.size() - 1);
+            next = KeysetCursor.builder().key(last.getCode()).id(last.getId()).build().encode();
+        }
+
+        log.debug("operatives loaded. cursor={}, count={}, next={}", cursor, raw.size(), next);
+
+        return BasicList.builder()
+                .kind(KIND)
+                .page(Paging.builder()
+                        .count(raw.size())
+                        .size(size)
+                        .build())
+                .next(next)
+                .data(raw)
+                .build();
+    }
+
+    private BasicList index() {
+        List<BasicData> data = repository.findAllBasicData();
+
+        log.debug("operatives loaded. count={}", data.size());
+
+        return BasicList.builder()
+                .kind(KIND)
+                .page(Paging.builder()
+                        .start(0)
+                        .count(data.size())
+                        .total(data.size())
+                        .build())
+                .data(data)
+                .build();
+    }
+
+    private void checkPageSize(final int size) {
+        if (size <= 0) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The page size has to be positive.",
+                    Map.of("size", Integer.toString(size))
+            );
+        }
+    }
+
+    private KeysetCursor decodeCursor(final String cursor) {
+        try {
+            return KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The cursor is invalid.",
+                    Map.of("cursor", cursor)
+            );
+        }
+    }
+
+    @Schema(
+            title = "Export all operatives",
+            description = "Streams all operatives as NDJSON (one JSON document per line) or CSV."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns all operatives"),
+            @APIResponse(responseCode = "400", description = "The requested format is not supported."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in")
+    })
+    @GET
+    @Path("/export")
+    @Produces({"application/x-ndjson", "text/csv"})
+    public Response export(
+            @Schema(description = "Format of the export: 'ndjson' or 'csv'.", nullable = true)
+            @QueryParam("format")
+            @DefaultValue("ndjson")
+            String format
+    ) {
+        return exporter.export(EXPORT, format);
+    }
+
+    @Schema(
+            title = "Retrieve the totals of an operative",
+            description = "Retrieves the xp, money and clearance of the operative including all booked reports."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the totals of the operative."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in."),
+            @APIResponse(responseCode = "404", description = "There is no operative with the given ID.")
+    })
+    @GET
+    @Path("/{id}/totals")
+    public OperativeTotals totals(
+            @Schema(description = "ID of the operative.", required = true)
+            @PathParam("id")
+            final UUID id
+    ) {
+        return ledger.totals(id)
+                .orElseThrow(() -> errorGenerator.throwHttpProblem(
+                        Response.Status.NOT_FOUND,
+                        "There is no operative with this id.",
+                        Map.of("operative", id.toString())
+                ));
+    }
+
+    @Schema(
+            title = "Retrieve the ledger of an operative",
+            description = "Retrieves the xp and money bookings of the operative, newest first."
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Returns the ledger entries."),
+            @APIResponse(responseCode = "400", description = "The paging parameters are invalid."),
+            @APIResponse(responseCode = "403", description = "Not logged in. Please log in.")
+    })
+    @GET
+    @Path("/{id}/ledger")
+    public List<LedgerEntry> ledger(
+            @Schema(description = "ID of the operative.", required = true)
+            @PathParam("id")
+            final UUID id,
+
+            @Schema(description = "Start index of the list in total set of entries.", nullable = true)
+            @QueryParam("start")
+            @DefaultValue("0")
+            final int start,
+
+            @Schema(description = "Size of page to request.", nullable = true)
+            @QueryParam("size")
+            @DefaultValue("50")
+            final int size
+    ) {
+        if (start < 0 || size <= 0 || size > MAX_LEDGER_PAGE) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "The start must not be negative and the page size has to be between 1 and " + MAX_LEDGER_PAGE + ".",
+                    Map.of("start", Integer.toString(start), "size", Integer.toString(size))
+            );
+        }
+
+        return ledger.entries(id, start, size);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.operatives;
+
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+import de.paladinsinn.tp.dcis.export.EntityExporter;
+import de.paladinsinn.tp.dcis.model.jpa.LedgerEntry;
+import de.paladinsinn.tp.dcis.model.jpa.OperativeTotals;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import javax.annotation.security.PermitAll;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * VirtualThreadOperativeResource -- Serves the operative API on virtual threads.
+ *
+ * <p>Replaces the {@link OperativeResource} when the deployment is built with {@code dcis.virtual-threads=true}. Every
+ * endpoint is overridden only to mark it with {@link RunOnVirtualThread}; RESTEasy Reactive reads the annotation
+ * from the method of the resource class, not from the inherited one.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-03-01
+ */
+@Schema(
+        name = "Operatives",
+        description = "Operative Management Service"
+)
+@IfBuildProperty(name = "dcis.virtual-threads", stringValue = "true")
+@Singleton // the base class has no no-args constructor for a client proxy
+@Path("/api/v1/operatives")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@PermitAll
+public class VirtualThreadOperativeResource extends OperativeResource {
+    @Inject
+    public VirtualThreadOperativeResource(
+            final EntityExporter exporter,
+            final OperativeRepository repository,
+            final OperativeLedger ledger,
+            final HttpErrorGenerator errorGenerator
+    ) {
+        super(exporter, repository, ledger, errorGenerator);
+    }
+
+
+    @Override
+    @RunOnVirtualThread
+    public Response index(
+            final int start,
+            final int size,
+            final String cursor,
+            final List<UUID> ids,
+            final Request request
+    ) {
+        return super.index(start, size, cursor, ids, request);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public Response export(final String format) {
+        return super.export(format);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public OperativeTotals totals(final UUID id) {
+        return super.totals(id);
+    }
+
+    @Override
+    @RunOnVirtualThread
+    public List<LedgerEntry> ledger(final UUID id, final int start, final int size) {
+        return super.ledger(id, start, size);
+    }
+}
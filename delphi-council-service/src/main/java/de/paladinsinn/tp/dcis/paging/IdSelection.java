@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.paging;
+
+import de.kaiserpfalzedv.commons.rest.HttpErrorGenerator;
+
+import javax.ws.rs.core.Response;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * IdSelection -- The IDs requested by a multi-get ({@code ?id=a&id=b...}).
+ *
+ * <p>The IDs are read with one IN query. The number of IDs per request is limited by {@link #MAX_IDS} to keep the
+ * URL and the query small.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+public final class IdSelection {
+    /** Maximum number of IDs within one request. */
+    public static final int MAX_IDS = 100;
+
+    private IdSelection() {}
+
+
+    /**
+     * @param ids The IDs as given in the request.
+     * @param errorGenerator Creates the problem if the selection is too large.
+     * @return The distinct IDs in request order.
+     */
+    public static Set<UUID> of(final List<UUID> ids, final HttpErrorGenerator errorGenerator) {
+        Set<UUID> result = ids.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+
+        if (result.size() > MAX_IDS) {
+            throw errorGenerator.throwHttpProblem(
+                    Response.Status.BAD_REQUEST,
+                    "At most " + MAX_IDS + " IDs may be requested at once.",
+                    Map.of("count", Integer.toString(result.size()))
+            );
+        }
+
+        return result;
+    }
+
+    /**
+     * @param ids The requested IDs.
+     * @param data The entities found.
+     * @param id Reads the ID of an entity.
+     * @param <T> The type of the entities.
+     * @return The entities found in request order. Unknown IDs are skipped.
+     */
+    public static <T> List<T> inRequestOrder(final Set<UUID> ids, final Collection<T> data, final Function<T, UUID> id) {
+        Map<UUID, T> found = data.stream().collect(Collectors.toMap(id, Function.identity()));
+
+        return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.paging;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * KeysetCursor -- The position of the last element delivered by a keyset (cursor) paged list.
+ *
+ * <p>The cursor consists of the sort key of the last delivered element and its ID as tie-breaker. It is handed to the
+ * clients as opaque string. The clients send it back to retrieve the page following this element.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-04
+ */
+@Builder
+@Value
+public class KeysetCursor {
+    private static final char SEPARATOR = '\n';
+
+    String key;
+    UUID id;
+
+
+    /**
+     * @return The opaque string representation of this cursor.
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((key + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses the opaque string representation of a cursor.
+     *
+     * @param cursor The opaque cursor as delivered by {@link #encode()}.
+     * @return The decoded cursor.
+     * @throws IllegalArgumentException If the cursor is not a valid keyset cursor.
+     */
+    public static KeysetCursor decode(final String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+        int separator = raw.lastIndexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Cursor does not contain a key and an id. cursor=" + cursor);
+        }
+
+        return KeysetCursor.builder()
+                .key(raw.substring(0, separator))
+                .id(UUID.fromString(raw.substring(separator + 1)))
+                .build();
+    }
+}
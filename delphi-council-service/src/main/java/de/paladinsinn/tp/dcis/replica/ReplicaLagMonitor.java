@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.replica;
+
+import io.agroal.api.AgroalDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * ReplicaLagMonitor -- Checks whether the read replica is recent enough to serve reads.
+ *
+ * <p>The replica is usable when it contains every revision the primary committed more than {@code max-lag} ago. The
+ * check compares the timestamps of the newest revisions in {@code REVINFO} on both databases. While the replica is
+ * lagging, unreachable or disabled, the reads stay on the primary (see {@link ReplicaRouting}).</p>
+ *
+ * <p>Every check also records up to which point in time the replica is known to be complete: the start of the check
+ * when it held the newest revision of the primary, else the timestamp of its newest revision. A client reading after
+ * its own write is served by the replica only when the replica is complete up to the time of that write (see
+ * {@link #isUsable(long)}).</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class ReplicaLagMonitor {
+    private static final String PRIMARY_REVISION = "SELECT MAX(REVTSTMP) FROM REVINFO WHERE REVTSTMP <= ?";
+    private static final String NEWEST_REVISION = "SELECT MAX(REVTSTMP) FROM REVINFO";
+
+    private final AgroalDataSource primary;
+
+    private final MeterRegistry registry;
+
+    @DataSource(ReplicaRouting.REPLICA)
+    AgroalDataSource replica;
+
+    @ConfigProperty(name = "dcis.replica.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "dcis.replica.max-lag", defaultValue = "PT5S")
+    Duration maxLag;
+
+    private volatile boolean usable = false;
+
+    /** The replica contains every revision committed before this time (epoch millis). */
+    private volatile long complete = 0L;
+
+
+    void register(@Observes final StartupEvent event) {
+        Gauge.builder("dcis.replica.usable", this, m -> m.isUsable() ? 1 : 0)
+                .description("1 while the reads are served by the read replica, 0 while they fall back to the primary.")
+                .register(registry);
+
+        check();
+    }
+
+    /**
+     * @return TRUE if the reads may be served by the replica.
+     */
+    public boolean isUsable() {
+        return usable;
+    }
+
+    /**
+     * @param readAfter the time of the last write of the client (epoch millis).
+     * @return TRUE if the reads may be served by the replica and the replica already contains that write.
+     */
+    public boolean isUsable(final long readAfter) {
+        return usable && complete >= readAfter;
+    }
+
+    @Scheduled(
+            identity = "replica-lag-monitor",
+            every = "{dcis.replica.check}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP
+    )
+    void check() {
+        boolean current = enabled && isRecent();
+
+        if (current != usable) {
+            log.info("Read replica state changed. usable={}, enabled={}, max-lag={}", current, enabled, maxLag);
+        }
+        usable = current;
+    }
+
+    private boolean isRecent() {
+        long started = System.currentTimeMillis();
+
+        try {
+            Long newest = newestRevision(primary, NEWEST_REVISION, null);
+            Long required = newestRevision(primary, PRIMARY_REVISION, started - maxLag.toMillis());
+            Long replicated = newestRevision(replica, NEWEST_REVISION, null);
+
+            if (newest == null || (replicated != null && replicated >= newest)) {
+                complete = started;
+            } else if (replicated != null && replicated > complete) {
+                complete = replicated;
+            }
+
+            if (required == null) {
+                return true;
+            }
+
+            if (replicated == null || replicated < required) {
+                log.debug("Read replica is lagging. required={}, replicated={}", required, replicated);
+                return false;
+            }
+
+            return true;
+        } catch (SQLException e) {
+            log.warn("Could not check the read replica. error={}", e.getMessage());
+            return false;
+        }
+    }
+
+    private Long newestRevision(final AgroalDataSource dataSource, final String sql, final Long before)
+            throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (before != null) {
+                statement.setLong(1, before);
+            }
+
+            try (ResultSet result = statement.executeQuery()) {
+                result.next();
+                long timestamp = result.getLong(1);
+                return result.wasNull() ? null : timestamp;
+            }
+        }
+    }
+}
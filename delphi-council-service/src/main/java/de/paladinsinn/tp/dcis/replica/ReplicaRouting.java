@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.paladinsinn.tp.dcis.replica;
+
+import io.quarkus.datasource.common.runtime.DataSourceUtil;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import io.quarkus.hibernate.orm.runtime.tenant.TenantResolver;
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.core.http.Cookie;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.RoutingContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import java.util.Set;
+
+/**
+ * ReplicaRouting -- Sends the database reads of safe HTTP requests to the read replica.
+ *
+ * <p>The persistence unit runs with database multi-tenancy and every datasource is a tenant. The reads of
+ * {@code GET} and {@code HEAD} requests use the datasource {@value #REPLICA} as long as the {@link ReplicaLagMonitor}
+ * reports it as usable. All other requests, the scheduled jobs and the startup code use the primary datasource, so
+ * every write stays on the primary.</p>
+ *
+ * <p>Only the session opened by {@link ReplicaSession} is routed to the replica. It bypasses the second level cache,
+ * since the cache keys contain the tenant and a write on the primary would never evict an entry read from the
+ * replica. Sessions opened within a transaction stay on the primary.</p>
+ *
+ * <p>A successful write answers with the time it was done as header and cookie {@value #READ_AFTER}. A request
+ * carrying it (as header or cookie) is served by the replica only once the replica contains that write, so a client
+ * always reads its own writes.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-12
+ */
+@PersistenceUnitExtension
+@RequestScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class ReplicaRouting implements TenantResolver {
+    /** The name of the replica datasource. */
+    public static final String REPLICA = "replica";
+
+    /** Header and cookie with the time of the last write of the client (epoch millis). */
+    public static final String READ_AFTER = "X-Dcis-Read-After";
+
+    private static final Set<HttpMethod> READ_ONLY = Set.of(HttpMethod.GET, HttpMethod.HEAD);
+
+    private final CurrentVertxRequest request;
+
+    private final ReplicaLagMonitor monitor;
+
+    private Boolean replica;
+
+    private boolean opening = false;
+
+    private boolean stamped = false;
+
+
+    @Override
+    public String getDefaultTenantId() {
+        return DataSourceUtil.DEFAULT_DATASOURCE_NAME;
+    }
+
+    @Override
+    public String resolveTenantId() {
+        RoutingContext context = request.getCurrent();
+
+        if (context != null && !READ_ONLY.contains(context.request().method())) {
+            stampAfterWrite(context);
+        }
+
+        if (!opening || context == null) {
+            return getDefaultTenantId();
+        }
+
+        log.trace("Routing read to replica. method={}, path={}", context.request().method(), context.normalizedPath());
+        return REPLICA;
+    }
+
+    /**
+     * @return TRUE if the reads of this request are served by the replica.
+     */
+    public boolean isReplica() {
+        if (replica == null) {
+            RoutingContext context = request.getCurrent();
+
+            replica = context != null
+                    && READ_ONLY.contains(context.request().method())
+                    && monitor.isUsable(readAfter(context));
+        }
+
+        return replica;
+    }
+
+    /**
+     * Routes the sessions opened by the given action to the replica.
+     *
+     * @param action opens the session of the request.
+     */
+    void open(final Runnable action) {
+        opening = true;
+        try {
+            action.run();
+        } finally {
+            opening = false;
+        }
+    }
+
+    private long readAfter(final RoutingContext context) {
+        String value = context.request().getHeader(READ_AFTER);
+        if (value == null) {
+            Cookie cookie = context.request().getCookie(READ_AFTER);
+            value = cookie != null ? cookie.getValue() : null;
+        }
+
+        if (value == null || value.isBlank()) {
+            return 0L;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            log.debug("Invalid read-after marker, reading from the primary. value={}", value);
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * The headers are written after the transaction of the request has been committed, so the time taken there is
+     * never before the commit.
+     */
+    private void stampAfterWrite(final RoutingContext context) {
+        if (stamped) {
+            return;
+        }
+        stamped = true;
+
+        context.addHeadersEndHandler(v -> {
+            if (context.response().getStatusCode() / 100 != 2) {
+                return;
+            }
+
+            String now = Long.toString(System.currentTimeMillis());
+            context.response().putHeader(READ_AFTER, now);
+            context.response().headers().add(HttpHeaders.SET_COOKIE,
+                    Cookie.cookie(READ_AFTER, now).setPath("/").setHttpOnly(true).encode());
+        });
+    }
+}
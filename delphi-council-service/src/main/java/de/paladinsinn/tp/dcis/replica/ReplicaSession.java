@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.paladinsinn.tp.dcis.replica;
+
+import io.quarkus.runtime.BlockingOperationControl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * ReplicaSession -- Opens the session of a request served by the read replica.
+ *
+ * <p>Hibernate can not disable the second level cache for a single tenant. So the session of the request is opened
+ * here before the resource runs, routed to the replica and set to {@link CacheMode#IGNORE}. All reads of the request
+ * outside a transaction use this session, every other session of the request is opened on the primary (see
+ * {@link ReplicaRouting}).</p>
+ *
+ * <p>Requests of non-blocking endpoints (the change stream, the reactive dispatch reads) are left alone: they run on
+ * the event loop, where the session must not be opened.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-28
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class ReplicaSession {
+    private final ReplicaRouting routing;
+
+    private final Session session;
+
+
+    @ServerRequestFilter
+    public void open() {
+        // the non-blocking endpoints run on the event loop and don't use the JPA session.
+        if (!BlockingOperationControl.isBlockingAllowed() || !routing.isReplica()) {
+            return;
+        }
+
+        routing.open(() -> session.setCacheMode(CacheMode.IGNORE));
+        log.trace("Opened replica session without second level cache.");
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.paladinsinn.tp.dcis;
+
+import de.paladinsinn.tp.dcis.dispatches.DispatchRepository;
+import de.paladinsinn.tp.dcis.engagements.EngagementFixtures;
+import de.paladinsinn.tp.dcis.engagements.EngagementRepository;
+import de.paladinsinn.tp.dcis.model.jpa.Engagment;
+import de.paladinsinn.tp.dcis.model.lists.BasicData;
+import de.paladinsinn.tp.dcis.operatives.OperativeLedger;
+import de.paladinsinn.tp.dcis.operatives.OperativeRepository;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import javax.inject.Inject;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * QueryPlansTest -- Checks that the repository queries use an index.
+ *
+ * <p>Runs every read query of the dispatch, operative and engagement repositories and the operative ledger against
+ * H2 in MariaDB mode. The statements Hibernate sent are collected from the query statistics of H2 and explained. A
+ * statement with a WHERE clause fails the test if any table is read with a full table scan. Statements without a
+ * WHERE clause read the whole list or the collection stamp on purpose and are not checked.</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-28
+ */
+@QuarkusTest
+@Slf4j
+public class QueryPlansTest {
+    private static final String FULL_SCAN = ".tableScan";
+
+    private static final String STATEMENTS = "SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS";
+
+    @Inject
+    EngagementFixtures fixtures;
+
+    @Inject
+    DispatchRepository dispatches;
+
+    @Inject
+    OperativeRepository operatives;
+
+    @Inject
+    EngagementRepository engagements;
+
+    @Inject
+    OperativeLedger ledger;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+
+    @Test
+    void shouldNotScanAnyTableForTheRepositoryQueries() throws SQLException {
+        UUID dispatch = fixtures.dispatch(5, 2);
+
+        resetStatistics();
+        runRepositoryQueries(dispatch);
+
+        Map<String, String> plans = explain(collectStatements());
+        assertFalse(plans.isEmpty(), "No repository statement has been recorded.");
+
+        List<String> scans = new ArrayList<>();
+        plans.forEach((sql, plan) -> {
+            log.info("Query plan. sql={}, plan={}", sql, plan);
+
+            if (plan.contains(FULL_SCAN)) {
+                scans.add(plan);
+            }
+        });
+
+        assertTrue(scans.isEmpty(), "Full table scans found:\n" + String.join("\n\n", scans));
+    }
+
+
+    private void runRepositoryQueries(final UUID dispatch) {
+        Pageable page = PageRequest.of(0, 2);
+
+        List<BasicData> dispatchList = dispatches.findFirstKeysetPage(page);
+        BasicData lastDispatch = dispatchList.get(dispatchList.size() - 1);
+        dispatches.findKeysetPageAfter(lastDispatch.getCode(), lastDispatch.getId(), page);
+        dispatches.findVersionStamp(dispatch);
+        dispatches.findAllById(Set.of(dispatch));
+
+        List<Engagment> list = engagements.listForDispatch(dispatch, page).getContent();
+        Engagment engagement = list.get(0);
+        engagements.listForDispatch(dispatch, Pageable.unpaged());
+        engagements.listForGameMaster(dispatch, engagement.getGameMaster(), page);
+        engagements.loadEngagement(dispatch, engagement.getId());
+
+        UUID operative = engagements.loadOperativeIds(List.of(engagement.getId()))
+                .get(engagement.getId()).iterator().next();
+        engagements.listForOperative(dispatch, operative, page);
+
+        List<BasicData> operativeList = operatives.findFirstKeysetPage(page);
+        BasicData lastOperative = operativeList.get(operativeList.size() - 1);
+        operatives.findKeysetPageAfter(lastOperative.getCode(), lastOperative.getId(), page);
+        operatives.findAllById(Set.of(operative));
+
+        ledger.totals(operative);
+        ledger.entries(operative, 0, 10);
+    }
+
+    private void resetStatistics() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SET QUERY_STATISTICS_MAX_ENTRIES 1000");
+            statement.execute("SET QUERY_STATISTICS FALSE");
+            statement.execute("SET QUERY_STATISTICS TRUE");
+        }
+    }
+
+    private List<String> collectStatements() throws SQLException {
+        List<String> result = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(STATEMENTS)) {
+            while (rows.next()) {
+                String sql = rows.getString(1);
+                String normalized = sql.trim().toLowerCase(Locale.ROOT);
+
+                if (normalized.startsWith("select")
+                        && normalized.contains(" where ")
+                        && !normalized.contains("information_schema")) {
+                    result.add(sql);
+                }
+            }
+
+            statement.execute("SET QUERY_STATISTICS FALSE");
+        }
+
+        return result;
+    }
+
+    private Map<String, String> explain(final List<String> statements) throws SQLException {
+        Map<String, String> result = new TreeMap<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (String sql : statements) {
+                try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                    // the plan is chosen without the values, so every parameter is NULL.
+                    int parameters = statement.getParameterMetaData().getParameterCount();
+                    for (int i = 1; i <= parameters; i++) {
+                        statement.setObject(i, null);
+                    }
+
+                    try (ResultSet plan = statement.executeQuery()) {
+                        StringBuilder text = new StringBuilder();
+                        while (plan.next()) {
+                            text.append(plan.getString(1)).append('\n');
+                        }
+
+                        result.put(sql, text.toString());
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+}
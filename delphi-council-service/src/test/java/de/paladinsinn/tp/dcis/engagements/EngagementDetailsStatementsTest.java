@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import io.quarkus.test.junit.QuarkusTest;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EngagementDetailsStatementsTest -- Checks that the engagement details are read with a fixed number of statements.
+ *
+ * <p>The details of a dispatch are read with one statement for the engagements with their dispatch and one for the
+ * operative IDs of all engagements. A page needs a third statement for the total. The number of statements must not
+ * grow with the number of engagements or operatives (no N+1 selects).</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-28
+ */
+@QuarkusTest
+@Slf4j
+public class EngagementDetailsStatementsTest {
+    private static final int ENGAGEMENTS = 10;
+    private static final int OPERATIVES = 3;
+
+    @Inject
+    EngagementFixtures fixtures;
+
+    @Inject
+    EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        assertTrue(statistics.isStatisticsEnabled(), "The hibernate statistics have to be enabled for the tests.");
+    }
+
+    @Test
+    void shouldReadAllDetailsWithTwoStatements() {
+        UUID dispatch = fixtures.dispatch(ENGAGEMENTS, OPERATIVES);
+        statistics.clear();
+
+        given()
+                .when().get("/api/v1/engagements/{dispatch}/details", dispatch)
+                .then()
+                .statusCode(200)
+                .body("size()", is(ENGAGEMENTS))
+                .body("[0].operatives.size()", is(OPERATIVES));
+
+        log.info("Read engagement details. statements={}", statistics.getPrepareStatementCount());
+        assertEquals(2L, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldReadAPageOfDetailsWithThreeStatements() {
+        UUID dispatch = fixtures.dispatch(ENGAGEMENTS, OPERATIVES);
+        statistics.clear();
+
+        given()
+                .queryParam("start", 0)
+                .queryParam("size", ENGAGEMENTS / 2)
+                .when().get("/api/v1/engagements/{dispatch}/details", dispatch)
+                .then()
+                .statusCode(200)
+                .body("size()", is(ENGAGEMENTS / 2))
+                .body("[0].operatives.size()", is(OPERATIVES));
+
+        log.info("Read page of engagement details. statements={}", statistics.getPrepareStatementCount());
+        assertEquals(3L, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldNotDependOnTheNumberOfEngagements() {
+        UUID small = fixtures.dispatch(1, 1);
+        UUID large = fixtures.dispatch(ENGAGEMENTS * 5, OPERATIVES * 2);
+
+        statistics.clear();
+        given().when().get("/api/v1/engagements/{dispatch}/details", small).then().statusCode(200);
+        long forSmall = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        given().when().get("/api/v1/engagements/{dispatch}/details", large).then().statusCode(200);
+        long forLarge = statistics.getPrepareStatementCount();
+
+        assertEquals(forSmall, forLarge);
+    }
+}
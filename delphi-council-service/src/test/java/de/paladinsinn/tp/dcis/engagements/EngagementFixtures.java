@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import de.kaiserpfalzedv.rpg.torg.model.actors.Clearance;
+import de.kaiserpfalzedv.rpg.torg.model.core.Cosm;
+import de.kaiserpfalzedv.rpg.torg.model.core.SuccessState;
+import de.paladinsinn.tp.dcis.common.Language;
+import de.paladinsinn.tp.dcis.model.jpa.Engagment;
+import de.paladinsinn.tp.dcis.model.jpa.Operation;
+import de.paladinsinn.tp.dcis.model.jpa.Operative;
+import de.paladinsinn.tp.dcis.model.jpa.OperativeDispatchReport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * EngagementFixtures -- Stores a dispatch with engagements and operatives for the tests.
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-02-28
+ */
+@ApplicationScoped
+@RequiredArgsConstructor(onConstructor = @__(@Inject))
+@Slf4j
+public class EngagementFixtures {
+    private final EntityManager entityManager;
+
+
+    /**
+     * Stores a new dispatch. Every engagement of the dispatch has all the given operatives.
+     *
+     * @param engagements The number of engagements of the dispatch.
+     * @param operatives The number of operatives taking part in every engagement.
+     * @return The ID of the new dispatch.
+     */
+    @ActivateRequestContext
+    @Transactional
+    public UUID dispatch(final int engagements, final int operatives) {
+        String code = UUID.randomUUID().toString().substring(0, 8);
+
+        Operation dispatch = Operation.builder()
+                .id(UUID.randomUUID())
+                .language(Language.DEU)
+                .code("T-" + code)
+                .name("Test dispatch " + code)
+                .description("A dispatch created by the tests.")
+                .payment(100)
+                .xp(5)
+                .clearance(Clearance.values()[0])
+                .build();
+        entityManager.persist(dispatch);
+
+        List<Operative> members = new ArrayList<>(operatives);
+        for (int i = 0; i < operatives; i++) {
+            Operative operative = Operative.builder()
+                    .id(UUID.randomUUID())
+                    .code("O-" + code + "-" + i)
+                    .name("Operative " + i)
+                    .lastName("Tester-" + code)
+                    .firstName("No. " + i)
+                    .cosm(Cosm.values()[0])
+                    .player("player-" + code)
+                    .build();
+            entityManager.persist(operative);
+            members.add(operative);
+        }
+
+        for (int i = 0; i < engagements; i++) {
+            Engagment engagement = Engagment.builder()
+                    .id(UUID.randomUUID())
+                    .dispatch(dispatch)
+                    .gameMaster("gm-" + code)
+                    .date(LocalDate.of(2023, 1, 1).plusDays(i))
+                    .objectivesMet(SuccessState.values()[0])
+                    .build();
+            entityManager.persist(engagement);
+
+            for (Operative operative : members) {
+                entityManager.persist(OperativeDispatchReport.builder()
+                        .id(UUID.randomUUID())
+                        .report(engagement)
+                        .operative(operative)
+                        .build());
+            }
+        }
+
+        log.debug("Stored test dispatch. dispatch={}, engagements={}, operatives={}",
+                dispatch.getId(), engagements, operatives);
+        return dispatch.getId();
+    }
+
+
+    /**
+     * Stores a new operative without any engagement.
+     *
+     * @return The ID of the new operative.
+     */
+    @ActivateRequestContext
+    @Transactional
+    public UUID operative() {
+        String code = UUID.randomUUID().toString().substring(0, 8);
+
+        Operative operative = Operative.builder()
+                .id(UUID.randomUUID())
+                .code("O-" + code)
+                .name("Operative " + code)
+                .lastName("Tester-" + code)
+                .firstName("Single")
+                .cosm(Cosm.values()[0])
+                .player("player-" + code)
+                .build();
+        entityManager.persist(operative);
+
+        return operative.getId();
+    }
+
+    /**
+     * Reads the first engagement of a dispatch.
+     *
+     * @param dispatch The ID of the dispatch.
+     * @return The ID of the first engagement.
+     */
+    @ActivateRequestContext
+    @Transactional
+    public UUID engagement(final UUID dispatch) {
+        return entityManager.createQuery(
+                        "SELECT e.id FROM Engagment e WHERE e.dispatch.id = :dispatch ORDER BY e.date, e.id",
+                        UUID.class
+                )
+                .setParameter("dispatch", dispatch)
+                .setMaxResults(1)
+                .getSingleResult();
+    }
+}
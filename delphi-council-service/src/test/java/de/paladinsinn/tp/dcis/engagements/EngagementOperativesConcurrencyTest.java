@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.paladinsinn.tp.dcis.engagements;
+
+import de.paladinsinn.tp.dcis.model.jpa.LedgerEntry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EngagementOperativesConcurrencyTest -- Checks that an operative is booked only once for an engagement.
+ *
+ * <p>Two adds of the same operative run at the same time. One of them stores the report and books the dispatch, the
+ * other one is rejected with 409 (Conflict).</p>
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-03-01
+ */
+@QuarkusTest
+@Slf4j
+public class EngagementOperativesConcurrencyTest {
+    private static final int ADDS = 2;
+
+    @Inject
+    EngagementFixtures fixtures;
+
+    @Inject
+    EntityManager entityManager;
+
+
+    @Test
+    void shouldBookAConcurrentlyAddedOperativeOnce() throws Exception {
+        UUID dispatch = fixtures.dispatch(1, 0);
+        UUID engagement = fixtures.engagement(dispatch);
+        UUID operative = fixtures.operative();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(ADDS);
+        List<Future<Integer>> adds = new ArrayList<>(ADDS);
+        try {
+            for (int i = 0; i < ADDS; i++) {
+                adds.add(executor.submit(() -> {
+                    start.await();
+                    return given()
+                            .contentType(ContentType.JSON)
+                            .body("{}")
+                            .when().put("/api/v1/engagements/{dispatch}/{engagement}/operative/{operative}",
+                                    dispatch, engagement, operative)
+                            .then()
+                            .extract().statusCode();
+                }));
+            }
+            start.countDown();
+
+            List<Integer> status = new ArrayList<>(ADDS);
+            for (Future<Integer> add : adds) {
+                status.add(add.get(30, TimeUnit.SECONDS));
+            }
+
+            log.info("Added operative concurrently. status={}", status);
+            assertTrue(status.contains(204), "One add has to succeed: " + status);
+            assertTrue(status.contains(409), "One add has to be rejected as conflict: " + status);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long bookings = QuarkusTransaction.call(() -> entityManager.createQuery(
+                        "SELECT COUNT(l) FROM LedgerEntry l "
+                                + "WHERE l.operative = :operative AND l.source = :source AND l.kind = :kind",
+                        Long.class
+                )
+                .setParameter("operative", operative)
+                .setParameter("source", LedgerEntry.Source.DISPATCH)
+                .setParameter("kind", LedgerEntry.Kind.BOOKING)
+                .getSingleResult());
+        assertEquals(1L, bookings);
+    }
+}
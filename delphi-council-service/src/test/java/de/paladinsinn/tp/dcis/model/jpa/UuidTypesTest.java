@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023. Roland T. Lichti
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.paladinsinn.tp.dcis.model.jpa;
+
+import de.paladinsinn.tp.dcis.engagements.EngagementFixtures;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import org.hibernate.SessionFactory;
+import org.hibernate.envers.AuditReader;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.type.ComponentType;
+import org.hibernate.type.Type;
+import org.hibernate.type.UUIDBinaryType;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UuidTypesTest -- Checks that the UUIDs are mapped as binaries and survive the round trip to the database.
+ *
+ * @author klenkes74 {@literal <rlichti@kaiserpfalz-edv.de>}
+ * @since 2.0.0  2023-03-01
+ */
+@QuarkusTest
+public class UuidTypesTest {
+    @Inject
+    EngagementFixtures fixtures;
+
+    @Inject
+    EntityManager entityManager;
+
+
+    @Test
+    void shouldMapTheInheritedIdAsBinary() {
+        MetamodelImplementor metamodel = (MetamodelImplementor) entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getMetamodel();
+
+        assertInstanceOf(UUIDBinaryType.class, metamodel.entityPersister(Operation.class).getIdentifierType());
+
+        Type audited = metamodel.entityPersister(Operation.class.getName() + "_AUD").getIdentifierType();
+        assertInstanceOf(ComponentType.class, audited);
+        assertTrue(
+                Arrays.stream(((ComponentType) audited).getSubtypes()).anyMatch(t -> t instanceof UUIDBinaryType),
+                "The ID of the audit table has to be mapped as binary."
+        );
+    }
+
+    @Test
+    void shouldReadTheEntityAndItsAuditRowBack() {
+        UUID id = fixtures.dispatch(1, 1);
+
+        QuarkusTransaction.run(() -> {
+            Operation stored = entityManager.find(Operation.class, id);
+            assertNotNull(stored, "The dispatch has to be read back by its ID.");
+            assertEquals(id, stored.getId());
+
+            AuditReader audit = AuditReaderFactory.get(entityManager);
+            List<Number> revisions = audit.getRevisions(Operation.class, id);
+            assertEquals(1, revisions.size());
+
+            Operation revision = audit.find(Operation.class, id, revisions.get(0));
+            assertNotNull(revision, "The audit row of the dispatch has to be read back by its ID.");
+            assertEquals(id, revision.getId());
+            assertEquals(stored.getCode(), revision.getCode());
+        });
+    }
+}
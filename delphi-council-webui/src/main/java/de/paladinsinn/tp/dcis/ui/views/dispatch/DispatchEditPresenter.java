@@ -14,7 +14,7 @@ import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.quarkus.annotation.UIScoped;
-import de.paladinsinn.tp.dcis.client.DispatchClient;
+import de.paladinsinn.tp.dcis.client.DispatchStore;
 import de.paladinsinn.tp.dcis.model.client.Operation;
 import de.paladinsinn.tp.dcis.ui.components.mvp.BasicPresenterImpl;
 import de.paladinsinn.tp.dcis.ui.components.notifications.ErrorNotification;
@@ -23,7 +23,6 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
 
 import javax.inject.Inject;
 import java.util.UUID;
@@ -42,14 +41,13 @@ import java.util.UUID;
 @Slf4j
 public class DispatchEditPresenter extends BasicPresenterImpl<Operation> {
     @Inject
-    @RestClient
     @SuppressWarnings("LSPLocalInspectionTool")
-    DispatchClient client;
+    DispatchStore store;
 
 
     @Override
     public void loadId(UUID id) {
-        Operation data = client.retrieve(id);
+        Operation data = store.retrieve(id);
 
         if (data == null) {
             log.error("dispatch with ID '{}' not found!", id);
@@ -70,11 +68,11 @@ public class DispatchEditPresenter extends BasicPresenterImpl<Operation> {
             data = form.getData();
 
             log.trace("Updating dispatch. presenter={}, data={}", this, data);
-            client.update(data.getId(), data);
+            store.update(data.getId(), data);
         } else {
             log.trace("Creating new dispatch. presenter={}, data={}", this, data);
             data = form.getData();
-            client.create(data);
+            store.create(data);
         }
         log.info("Data saved. mission='{}', code='{}'", data.getId(), data.getCode());
         Notification.show(getView().getTranslation("input.data.saved.success", data.getName(), data.getCode()));
@@ -91,7 +89,7 @@ public class DispatchEditPresenter extends BasicPresenterImpl<Operation> {
 
             log.info("Deleting mission data. mission='{}', code='{}'", data.getId(), data.getCode());
 
-            client.delete(data.getId());
+            store.delete(data.getId());
             log.info("Deleted mission data. mission='{}', code='{}'", data.getId(), data.getCode());
             Notification.show(getView().getTranslation("input.data.deleted.success", data.getName(), data.getCode()));
         }
@@ -10,12 +10,11 @@
 
 package de.paladinsinn.tp.dcis.ui.views.dispatchlist;
 
-import de.paladinsinn.tp.dcis.client.DispatchClient;
+import de.paladinsinn.tp.dcis.client.DispatchStore;
 import de.paladinsinn.tp.dcis.model.lists.BasicList;
 import de.paladinsinn.tp.dcis.ui.components.mvp.BasicListPresenterImpl;
 import de.paladinsinn.tp.dcis.ui.components.notifications.ErrorNotification;
 import lombok.extern.slf4j.Slf4j;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
 
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
@@ -30,13 +29,12 @@ import javax.inject.Inject;
 @Slf4j
 public class DispatchListPresenter extends BasicListPresenterImpl<DispatchListView> {
     @Inject
-    @RestClient
-    DispatchClient client;
+    DispatchStore store;
 
     @Override
     public void loadData() throws UnsupportedOperationException {
         try {
-            BasicList data = client.retrieve();
+            BasicList data = store.retrieve();
             log.trace("Retrieved mission data. data={}", data);
 
             setData(data);